@@ -1,12 +1,16 @@
 package dev.crashteam.ke_data_scrapper.aws;
 
 import com.amazonaws.services.kinesis.AmazonKinesis;
+import com.amazonaws.services.kinesis.model.ListShardsRequest;
+import com.amazonaws.services.kinesis.model.ListShardsResult;
 import com.amazonaws.services.kinesis.model.PutRecordsRequest;
 import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
 import com.amazonaws.services.kinesis.model.PutRecordsResult;
+import com.amazonaws.services.kinesis.model.Shard;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -21,4 +25,17 @@ public class AwsStreamClient {
         createRecordsRequest.setRecords(entries);
         return amazonKinesis.putRecords(createRecordsRequest);
     }
+
+    public List<Shard> listShards(String streamName) {
+        List<Shard> shards = new ArrayList<>();
+        ListShardsRequest request = new ListShardsRequest().withStreamName(streamName);
+        while (true) {
+            ListShardsResult result = amazonKinesis.listShards(request);
+            shards.addAll(result.getShards());
+            if (result.getNextToken() == null) {
+                return shards;
+            }
+            request = new ListShardsRequest().withNextToken(result.getNextToken());
+        }
+    }
 }
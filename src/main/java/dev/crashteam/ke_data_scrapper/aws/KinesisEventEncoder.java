@@ -0,0 +1,114 @@
+package dev.crashteam.ke_data_scrapper.aws;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.google.protobuf.CodedOutputStream;
+import dev.crashteam.ke.scrapper.data.v1.KeScrapperEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Encodes scrapper events into Kinesis entries. Every thread reuses one event builder and writes the
+ * events back to back into a shared slab, the entries are views of the slab and the bytes are copied
+ * only when the AWS SDK marshals the request. A full slab is dropped, not recycled, so it is freed by
+ * the GC once its entries are sent. Event ids are time-ordered UUIDs (version 7) generated per thread.
+ * <p>
+ * Virtual threads live for a handful of events, a builder and slab per thread would only add
+ * allocation there, so they build every event anew and encode it with {@code toByteArray}.
+ */
+public final class KinesisEventEncoder {
+
+    private static final int SLAB_SIZE = 64 * 1024;
+    private static final int MAX_SLAB_EVENT_SIZE = SLAB_SIZE / 8;
+
+    private static final ThreadLocal<EncoderState> STATE = ThreadLocal.withInitial(EncoderState::new);
+
+    private KinesisEventEncoder() {
+    }
+
+    /**
+     * @return cleared event builder of the calling thread, a new one on virtual threads, with a new event
+     * id and the scrap time set, valid until the next call on the same thread
+     */
+    public static KeScrapperEvent.Builder newEvent(Instant scrapTime) {
+        KeScrapperEvent.Builder event;
+        if (Thread.currentThread().isVirtual()) {
+            event = KeScrapperEvent.newBuilder()
+                    .setEventId(eventId(System.currentTimeMillis(), ThreadLocalRandom.current().nextInt(0x1000)));
+        } else {
+            EncoderState state = STATE.get();
+            event = state.event.clear()
+                    .setEventId(state.nextEventId());
+        }
+        event.getScrapTimeBuilder()
+                .setSeconds(scrapTime.getEpochSecond())
+                .setNanos(scrapTime.getNano());
+        return event;
+    }
+
+    public static PutRecordsRequestEntry toEntry(KeScrapperEvent.Builder event, String partitionKey) {
+        PutRecordsRequestEntry requestEntry = new PutRecordsRequestEntry();
+        requestEntry.setPartitionKey(partitionKey);
+        requestEntry.setData(encode(event.build()));
+        return requestEntry;
+    }
+
+    public static ByteBuffer encode(KeScrapperEvent event) {
+        int size = event.getSerializedSize();
+        if (size > MAX_SLAB_EVENT_SIZE || Thread.currentThread().isVirtual()) {
+            return ByteBuffer.wrap(event.toByteArray());
+        }
+        EncoderState state = STATE.get();
+        if (state.offset + size > SLAB_SIZE) {
+            state.slab = new byte[SLAB_SIZE];
+            state.offset = 0;
+        }
+        try {
+            CodedOutputStream output = CodedOutputStream.newInstance(state.slab, state.offset, size);
+            event.writeTo(output);
+            output.checkNoSpaceLeft();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer data = ByteBuffer.wrap(state.slab, state.offset, size).slice();
+        state.offset += size;
+        return data;
+    }
+
+    private static final class EncoderState {
+
+        private final KeScrapperEvent.Builder event = KeScrapperEvent.newBuilder();
+        private byte[] slab = new byte[SLAB_SIZE];
+        private int offset;
+        private long lastMillis;
+        private int sequence;
+
+        /**
+         * UUID version 7: 48 bit unix millis, a per thread sequence in the 12 bits of rand_a keeping the
+         * ids of one thread strictly ordered and 62 random bits.
+         */
+        String nextEventId() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long millis = System.currentTimeMillis();
+            if (millis > lastMillis) {
+                lastMillis = millis;
+                sequence = random.nextInt(0x800);
+            } else if (++sequence > 0xFFF) {
+                // sequence exhausted within a millisecond, borrow the next one
+                lastMillis++;
+                sequence = 0;
+            }
+            return eventId(lastMillis, sequence);
+        }
+    }
+
+    private static String eventId(long millis, int sequence) {
+        long mostSigBits = (millis << 16) | 0x7000L | sequence;
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+}
@@ -0,0 +1,104 @@
+package dev.crashteam.ke_data_scrapper.aws;
+
+import com.amazonaws.services.kinesis.clientlibrary.types.Messages;
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.google.protobuf.ByteString;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs user records into KPL-compatible aggregated records: magic bytes, AggregatedRecord protobuf
+ * and its MD5. Consumers read them back with KCL UserRecord.deaggregate.
+ */
+public class KinesisRecordAggregator {
+
+    public static final byte[] AGGREGATED_RECORD_MAGIC = new byte[]{(byte) 0xF3, (byte) 0x89, (byte) 0x9A, (byte) 0xC2};
+
+    private static final int DIGEST_SIZE = 16;
+    private static final int RECORD_OVERHEAD = 24;
+
+    /**
+     * Aggregates records of the same shard, or of the same partition key when no shard map is known.
+     * Records keep their relative order within a shard.
+     */
+    public static List<PutRecordsRequestEntry> aggregate(List<PutRecordsRequestEntry> entries, int maxBytes,
+                                                         KinesisShardMap shardMap) {
+        Map<String, List<PutRecordsRequestEntry>> groups = new LinkedHashMap<>();
+        for (PutRecordsRequestEntry entry : entries) {
+            if (entry == null) continue;
+            String group = shardMap != null ? shardMap.shardOf(entry.getPartitionKey()) : entry.getPartitionKey();
+            groups.computeIfAbsent(group, key -> new ArrayList<>()).add(entry);
+        }
+        List<PutRecordsRequestEntry> aggregated = new ArrayList<>();
+        for (List<PutRecordsRequestEntry> group : groups.values()) {
+            aggregate(group, maxBytes, aggregated);
+        }
+        return aggregated;
+    }
+
+    private static void aggregate(List<PutRecordsRequestEntry> entries, int maxBytes, List<PutRecordsRequestEntry> aggregated) {
+        int payloadLimit = maxBytes - AGGREGATED_RECORD_MAGIC.length - DIGEST_SIZE;
+        Messages.AggregatedRecord.Builder builder = null;
+        Map<String, Integer> partitionKeys = new HashMap<>();
+        String firstPartitionKey = null;
+        int size = 0;
+        for (PutRecordsRequestEntry entry : entries) {
+            String partitionKey = entry.getPartitionKey();
+            int keySize = partitionKeys.containsKey(partitionKey)
+                    ? 0 : partitionKey.getBytes(StandardCharsets.UTF_8).length + RECORD_OVERHEAD;
+            int recordSize = entry.getData().remaining() + keySize + RECORD_OVERHEAD;
+            if (builder != null && size + recordSize > payloadLimit) {
+                aggregated.add(toEntry(builder.build(), firstPartitionKey));
+                builder = null;
+            }
+            if (builder == null) {
+                builder = Messages.AggregatedRecord.newBuilder();
+                partitionKeys.clear();
+                firstPartitionKey = partitionKey;
+                size = 0;
+                keySize = partitionKey.getBytes(StandardCharsets.UTF_8).length + RECORD_OVERHEAD;
+                recordSize = entry.getData().remaining() + keySize + RECORD_OVERHEAD;
+            }
+            Integer keyIndex = partitionKeys.get(partitionKey);
+            if (keyIndex == null) {
+                keyIndex = partitionKeys.size();
+                partitionKeys.put(partitionKey, keyIndex);
+                builder.addPartitionKeyTable(partitionKey);
+            }
+            builder.addRecords(Messages.Record.newBuilder()
+                    .setPartitionKeyIndex(keyIndex)
+                    .setData(ByteString.copyFrom(entry.getData().duplicate())));
+            size += recordSize;
+        }
+        if (builder != null) {
+            aggregated.add(toEntry(builder.build(), firstPartitionKey));
+        }
+    }
+
+    private static PutRecordsRequestEntry toEntry(Messages.AggregatedRecord record, String partitionKey) {
+        byte[] payload = record.toByteArray();
+        byte[] digest = md5(payload);
+        ByteBuffer data = ByteBuffer.allocate(AGGREGATED_RECORD_MAGIC.length + payload.length + digest.length);
+        data.put(AGGREGATED_RECORD_MAGIC).put(payload).put(digest).flip();
+        PutRecordsRequestEntry requestEntry = new PutRecordsRequestEntry();
+        requestEntry.setPartitionKey(partitionKey);
+        requestEntry.setData(data);
+        return requestEntry;
+    }
+
+    private static byte[] md5(byte[] payload) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(payload);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
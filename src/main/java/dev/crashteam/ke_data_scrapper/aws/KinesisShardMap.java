@@ -0,0 +1,53 @@
+package dev.crashteam.ke_data_scrapper.aws;
+
+import com.amazonaws.services.kinesis.model.Shard;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hash key ranges of the open shards of a stream. Kinesis routes a record by the MD5 of its partition
+ * key, KCL drops deaggregated user records outside the range of the shard they were read from, so an
+ * aggregated record may only contain user records of one shard.
+ */
+public class KinesisShardMap {
+
+    private final BigInteger[] startingHashKeys;
+    private final String[] shardIds;
+
+    public KinesisShardMap(List<Shard> shards) {
+        List<Shard> open = shards.stream()
+                .filter(shard -> shard.getSequenceNumberRange() == null
+                        || shard.getSequenceNumberRange().getEndingSequenceNumber() == null)
+                .sorted(Comparator.comparing(shard -> new BigInteger(shard.getHashKeyRange().getStartingHashKey())))
+                .toList();
+        if (open.isEmpty()) {
+            throw new IllegalArgumentException("Stream has no open shards");
+        }
+        startingHashKeys = new BigInteger[open.size()];
+        shardIds = new String[open.size()];
+        for (int i = 0; i < open.size(); i++) {
+            startingHashKeys[i] = new BigInteger(open.get(i).getHashKeyRange().getStartingHashKey());
+            shardIds[i] = open.get(i).getShardId();
+        }
+    }
+
+    public String shardOf(String partitionKey) {
+        int index = Arrays.binarySearch(startingHashKeys, hashOf(partitionKey));
+        return shardIds[index >= 0 ? index : Math.max(0, -index - 2)];
+    }
+
+    public static BigInteger hashOf(String partitionKey) {
+        try {
+            return new BigInteger(1, MessageDigest.getInstance("MD5")
+                    .digest(partitionKey.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package dev.crashteam.ke_data_scrapper.component;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide executor for per-product work of product and position jobs.
+ * In {@link ExecutionMode#PLATFORM} mode tasks run on a fixed pool, in {@link ExecutionMode#VIRTUAL}
+ * mode every task gets its own virtual thread. In both modes concurrency is bounded by a semaphore,
+ * shared with the work of long-running stage threads run through {@link #callBounded(Supplier)}.
+ */
+@Slf4j
+@Component
+public class JobTaskExecutor implements DisposableBean {
+
+    private final ExecutionMode mode;
+    private final ExecutorService executorService;
+    private final Semaphore permits;
+
+    public JobTaskExecutor(@Value("${app.job.executor.mode}") ExecutionMode mode,
+                           @Value("${app.job.executor.concurrency}") int concurrency) {
+        this.mode = mode;
+        this.permits = new Semaphore(concurrency);
+        this.executorService = switch (mode) {
+            case PLATFORM -> Executors.newFixedThreadPool(concurrency);
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("job-virtual-", 0).factory());
+        };
+        log.info("Job task executor started in {} mode with concurrency {}", mode, concurrency);
+    }
+
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        return executorService.invokeAll(tasks.stream().map(this::bounded).toList());
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return executorService.submit(bounded(task));
+    }
+
+    /**
+     * Runs the task on the calling thread once a permit is free, for stage threads started with
+     * {@link #startThread(String, Runnable)} that call the proxy.
+     */
+    public <T> T callBounded(Supplier<T> task) throws InterruptedException {
+        permits.acquire();
+        try {
+            return task.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public Thread startThread(String name, Runnable task) {
+        Thread.Builder builder = mode == ExecutionMode.VIRTUAL
+                ? Thread.ofVirtual()
+                : Thread.ofPlatform().daemon(true);
+        return builder.name(name).start(task);
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void destroy() {
+        executorService.shutdownNow();
+    }
+
+    private <T> Callable<T> bounded(Callable<T> task) {
+        return () -> {
+            permits.acquire();
+            try {
+                return task.call();
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    public enum ExecutionMode {
+        PLATFORM,
+        VIRTUAL
+    }
+}
@@ -0,0 +1,12 @@
+package dev.crashteam.ke_data_scrapper.component.cache;
+
+import dev.crashteam.ke_data_scrapper.component.GzipRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+public enum CacheCodec {
+    GZIP, COMPACT;
+
+    public RedisSerializer<Object> serializer(CompactCacheRedisSerializer.Compression compression) {
+        return this == COMPACT ? new CompactCacheRedisSerializer(compression) : new GzipRedisSerializer();
+    }
+}
@@ -0,0 +1,303 @@
+package dev.crashteam.ke_data_scrapper.component.cache;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import dev.crashteam.ke_data_scrapper.model.cache.CachedProductData;
+import dev.crashteam.ke_data_scrapper.model.cache.GraphQlCacheData;
+import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Field-by-field binary layout for cached types: varints for numbers, a presence flag
+ * for nullable values and a length prefix (0 for null) for lists.
+ */
+public class CompactCacheCodec {
+
+    public static final byte PRODUCT_TYPE = 1;
+    public static final byte GRAPH_TYPE = 2;
+
+    public static boolean supports(Object value) {
+        return value instanceof CachedProductData || value instanceof GraphQlCacheData;
+    }
+
+    public static byte typeOf(Object value) {
+        return value instanceof CachedProductData ? PRODUCT_TYPE : GRAPH_TYPE;
+    }
+
+    public static byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(1024);
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+        if (value instanceof CachedProductData productData) {
+            writeProduct(output, productData);
+        } else {
+            writeGraph(output, (GraphQlCacheData) value);
+        }
+        output.flush();
+        return outputStream.toByteArray();
+    }
+
+    public static Object decode(byte type, byte[] bytes) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(bytes);
+        return switch (type) {
+            case PRODUCT_TYPE -> readProduct(input);
+            case GRAPH_TYPE -> readGraph(input);
+            default -> throw new IOException("Unknown cache value type - " + type);
+        };
+    }
+
+    private static void writeProduct(CodedOutputStream output, CachedProductData productData) throws IOException {
+        List<KeProduct.CharacteristicsData> characteristics = productData.getCharacteristics();
+        writeSize(output, characteristics);
+        if (characteristics != null) {
+            for (KeProduct.CharacteristicsData characteristic : characteristics) {
+                if (writePresent(output, characteristic)) {
+                    writeLong(output, characteristic.getId());
+                    writeString(output, characteristic.getTitle());
+                    writeSize(output, characteristic.getValues());
+                    if (characteristic.getValues() != null) {
+                        for (KeProduct.Characteristic value : characteristic.getValues()) {
+                            if (writePresent(output, value)) {
+                                writeLong(output, value.getId());
+                                writeString(output, value.getTitle());
+                                writeString(output, value.getValue());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        List<KeProduct.SkuData> skuList = productData.getSkuList();
+        writeSize(output, skuList);
+        if (skuList != null) {
+            for (KeProduct.SkuData sku : skuList) {
+                if (writePresent(output, sku)) {
+                    writeLong(output, sku.getId());
+                    writeSize(output, sku.getCharacteristics());
+                    if (sku.getCharacteristics() != null) {
+                        for (KeProduct.ScuCharacteristic skuCharacteristic : sku.getCharacteristics()) {
+                            if (writePresent(output, skuCharacteristic)) {
+                                writeInteger(output, skuCharacteristic.getCharIndex());
+                                writeInteger(output, skuCharacteristic.getValueIndex());
+                            }
+                        }
+                    }
+                    writeLong(output, sku.getAvailableAmount());
+                    writeString(output, sku.getFullPrice());
+                    writeString(output, sku.getCharityProfit());
+                    writeString(output, sku.getPurchasePrice());
+                    writeString(output, sku.getBarcode());
+                    writeLong(output, sku.getSellPrice());
+                    KeProduct.Restriction restriction = sku.getRestriction();
+                    if (writePresent(output, restriction)) {
+                        writeLong(output, restriction.getRestrictedAmount());
+                        writeLong(output, restriction.getBoughtAmount());
+                        writeBoolean(output, restriction.getRestricted());
+                    }
+                }
+            }
+        }
+    }
+
+    private static CachedProductData readProduct(CodedInputStream input) throws IOException {
+        CachedProductData productData = new CachedProductData();
+        int characteristicsSize = input.readUInt32();
+        if (characteristicsSize > 0) {
+            List<KeProduct.CharacteristicsData> characteristics = new ArrayList<>(characteristicsSize - 1);
+            for (int i = 1; i < characteristicsSize; i++) {
+                KeProduct.CharacteristicsData characteristic = null;
+                if (input.readBool()) {
+                    characteristic = new KeProduct.CharacteristicsData();
+                    characteristic.setId(readLong(input));
+                    characteristic.setTitle(readString(input));
+                    int valuesSize = input.readUInt32();
+                    if (valuesSize > 0) {
+                        List<KeProduct.Characteristic> values = new ArrayList<>(valuesSize - 1);
+                        for (int j = 1; j < valuesSize; j++) {
+                            KeProduct.Characteristic value = null;
+                            if (input.readBool()) {
+                                value = new KeProduct.Characteristic();
+                                value.setId(readLong(input));
+                                value.setTitle(readString(input));
+                                value.setValue(readString(input));
+                            }
+                            values.add(value);
+                        }
+                        characteristic.setValues(values);
+                    }
+                }
+                characteristics.add(characteristic);
+            }
+            productData.setCharacteristics(characteristics);
+        }
+        int skuSize = input.readUInt32();
+        if (skuSize > 0) {
+            List<KeProduct.SkuData> skuList = new ArrayList<>(skuSize - 1);
+            for (int i = 1; i < skuSize; i++) {
+                KeProduct.SkuData sku = null;
+                if (input.readBool()) {
+                    sku = new KeProduct.SkuData();
+                    sku.setId(readLong(input));
+                    int skuCharacteristicsSize = input.readUInt32();
+                    if (skuCharacteristicsSize > 0) {
+                        List<KeProduct.ScuCharacteristic> skuCharacteristics = new ArrayList<>(skuCharacteristicsSize - 1);
+                        for (int j = 1; j < skuCharacteristicsSize; j++) {
+                            KeProduct.ScuCharacteristic skuCharacteristic = null;
+                            if (input.readBool()) {
+                                skuCharacteristic = new KeProduct.ScuCharacteristic();
+                                skuCharacteristic.setCharIndex(readInteger(input));
+                                skuCharacteristic.setValueIndex(readInteger(input));
+                            }
+                            skuCharacteristics.add(skuCharacteristic);
+                        }
+                        sku.setCharacteristics(skuCharacteristics);
+                    }
+                    sku.setAvailableAmount(readLong(input));
+                    sku.setFullPrice(readString(input));
+                    sku.setCharityProfit(readString(input));
+                    sku.setPurchasePrice(readString(input));
+                    sku.setBarcode(readString(input));
+                    sku.setSellPrice(readLong(input));
+                    if (input.readBool()) {
+                        KeProduct.Restriction restriction = new KeProduct.Restriction();
+                        restriction.setRestrictedAmount(readLong(input));
+                        restriction.setBoughtAmount(readLong(input));
+                        restriction.setRestricted(readBoolean(input));
+                        sku.setRestriction(restriction);
+                    }
+                }
+                skuList.add(sku);
+            }
+            productData.setSkuList(skuList);
+        }
+        return productData;
+    }
+
+    private static void writeGraph(CodedOutputStream output, GraphQlCacheData graphData) throws IOException {
+        if (!writePresent(output, graphData.getData())) {
+            return;
+        }
+        GraphQlCacheData.MakeSearch makeSearch = graphData.getData().getMakeSearch();
+        if (!writePresent(output, makeSearch)) {
+            return;
+        }
+        writeLong(output, makeSearch.getTotal());
+        writeSize(output, makeSearch.getItems());
+        if (makeSearch.getItems() == null) {
+            return;
+        }
+        for (GraphQlCacheData.CatalogCardWrapper item : makeSearch.getItems()) {
+            if (!writePresent(output, item)) continue;
+            GraphQlCacheData.CatalogCard catalogCard = item.getCatalogCard();
+            if (!writePresent(output, catalogCard)) continue;
+            writeLong(output, catalogCard.getProductId());
+            writeSize(output, catalogCard.getCharacteristicValues());
+            if (catalogCard.getCharacteristicValues() != null) {
+                for (GraphQlCacheData.CharacteristicValue characteristicValue : catalogCard.getCharacteristicValues()) {
+                    if (writePresent(output, characteristicValue)) {
+                        writeLong(output, characteristicValue.getId());
+                    }
+                }
+            }
+        }
+    }
+
+    private static GraphQlCacheData readGraph(CodedInputStream input) throws IOException {
+        GraphQlCacheData graphData = new GraphQlCacheData();
+        if (!input.readBool()) {
+            return graphData;
+        }
+        GraphQlCacheData.ResponseData responseData = new GraphQlCacheData.ResponseData();
+        graphData.setData(responseData);
+        if (!input.readBool()) {
+            return graphData;
+        }
+        GraphQlCacheData.MakeSearch makeSearch = new GraphQlCacheData.MakeSearch();
+        responseData.setMakeSearch(makeSearch);
+        makeSearch.setTotal(readLong(input));
+        int itemsSize = input.readUInt32();
+        if (itemsSize == 0) {
+            return graphData;
+        }
+        List<GraphQlCacheData.CatalogCardWrapper> items = new ArrayList<>(itemsSize - 1);
+        for (int i = 1; i < itemsSize; i++) {
+            GraphQlCacheData.CatalogCardWrapper item = null;
+            if (input.readBool()) {
+                item = new GraphQlCacheData.CatalogCardWrapper();
+                if (input.readBool()) {
+                    GraphQlCacheData.CatalogCard catalogCard = new GraphQlCacheData.CatalogCard();
+                    catalogCard.setProductId(readLong(input));
+                    int characteristicsSize = input.readUInt32();
+                    if (characteristicsSize > 0) {
+                        List<GraphQlCacheData.CharacteristicValue> characteristicValues = new ArrayList<>(characteristicsSize - 1);
+                        for (int j = 1; j < characteristicsSize; j++) {
+                            GraphQlCacheData.CharacteristicValue characteristicValue = null;
+                            if (input.readBool()) {
+                                characteristicValue = new GraphQlCacheData.CharacteristicValue();
+                                characteristicValue.setId(readLong(input));
+                            }
+                            characteristicValues.add(characteristicValue);
+                        }
+                        catalogCard.setCharacteristicValues(characteristicValues);
+                    }
+                    item.setCatalogCard(catalogCard);
+                }
+            }
+            items.add(item);
+        }
+        makeSearch.setItems(items);
+        return graphData;
+    }
+
+    private static boolean writePresent(CodedOutputStream output, Object value) throws IOException {
+        output.writeBoolNoTag(value != null);
+        return value != null;
+    }
+
+    private static void writeSize(CodedOutputStream output, List<?> list) throws IOException {
+        output.writeUInt32NoTag(list == null ? 0 : list.size() + 1);
+    }
+
+    private static void writeLong(CodedOutputStream output, Long value) throws IOException {
+        if (writePresent(output, value)) {
+            output.writeSInt64NoTag(value);
+        }
+    }
+
+    private static Long readLong(CodedInputStream input) throws IOException {
+        return input.readBool() ? input.readSInt64() : null;
+    }
+
+    private static void writeInteger(CodedOutputStream output, Integer value) throws IOException {
+        if (writePresent(output, value)) {
+            output.writeSInt32NoTag(value);
+        }
+    }
+
+    private static Integer readInteger(CodedInputStream input) throws IOException {
+        return input.readBool() ? input.readSInt32() : null;
+    }
+
+    private static void writeString(CodedOutputStream output, String value) throws IOException {
+        if (writePresent(output, value)) {
+            output.writeStringNoTag(value);
+        }
+    }
+
+    private static String readString(CodedInputStream input) throws IOException {
+        return input.readBool() ? input.readString() : null;
+    }
+
+    private static void writeBoolean(CodedOutputStream output, Boolean value) throws IOException {
+        if (writePresent(output, value)) {
+            output.writeBoolNoTag(value);
+        }
+    }
+
+    private static Boolean readBoolean(CodedInputStream input) throws IOException {
+        return input.readBool() ? input.readBool() : null;
+    }
+}
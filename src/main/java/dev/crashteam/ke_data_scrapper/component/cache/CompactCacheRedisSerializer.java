@@ -0,0 +1,100 @@
+package dev.crashteam.ke_data_scrapper.component.cache;
+
+import dev.crashteam.ke_data_scrapper.component.GzipRedisSerializer;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Writes cached product and page data with {@link CompactCacheCodec}. Values that start without
+ * the codec magic byte are entries written by {@link GzipRedisSerializer} and are read through it,
+ * which is also used for any other value type.
+ */
+public class CompactCacheRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC = (byte) 0xCA;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 4;
+
+    private static final LZ4Compressor LZ4_COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor LZ4_DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final GzipRedisSerializer gzipRedisSerializer = new GzipRedisSerializer();
+    private final Compression compression;
+
+    public CompactCacheRedisSerializer(Compression compression) {
+        this.compression = compression;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!CompactCacheCodec.supports(value)) {
+            return gzipRedisSerializer.serialize(value);
+        }
+        byte[] payload;
+        try {
+            payload = CompactCacheCodec.encode(value);
+        } catch (Exception e) {
+            throw new SerializationException("Unable to encode cache value", e);
+        }
+        ByteBuffer buffer;
+        if (compression == Compression.LZ4) {
+            int maxLength = LZ4_COMPRESSOR.maxCompressedLength(payload.length);
+            buffer = ByteBuffer.allocate(HEADER_SIZE + Integer.BYTES + maxLength);
+            writeHeader(buffer, value, compression);
+            buffer.putInt(payload.length);
+            int compressedLength = LZ4_COMPRESSOR.compress(payload, 0, payload.length,
+                    buffer.array(), buffer.position(), maxLength);
+            return Arrays.copyOf(buffer.array(), buffer.position() + compressedLength);
+        }
+        buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        writeHeader(buffer, value, Compression.NONE);
+        buffer.put(payload);
+        return buffer.array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return gzipRedisSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE || bytes[1] != VERSION
+                || bytes[3] < 0 || bytes[3] >= Compression.values().length) {
+            throw new SerializationException("Unsupported cache codec header");
+        }
+        byte type = bytes[2];
+        Compression valueCompression = Compression.values()[bytes[3]];
+        try {
+            byte[] payload;
+            if (valueCompression == Compression.LZ4) {
+                int length = ByteBuffer.wrap(bytes, HEADER_SIZE, Integer.BYTES).getInt();
+                payload = new byte[length];
+                LZ4_DECOMPRESSOR.decompress(bytes, HEADER_SIZE + Integer.BYTES, payload, 0, length);
+            } else {
+                payload = Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length);
+            }
+            return CompactCacheCodec.decode(type, payload);
+        } catch (Exception e) {
+            throw new SerializationException("Unable to decode cache value", e);
+        }
+    }
+
+    private void writeHeader(ByteBuffer buffer, Object value, Compression valueCompression) {
+        buffer.put(MAGIC)
+                .put(VERSION)
+                .put(CompactCacheCodec.typeOf(value))
+                .put((byte) valueCompression.ordinal());
+    }
+
+    public enum Compression {
+        NONE, LZ4
+    }
+}
@@ -0,0 +1,119 @@
+package dev.crashteam.ke_data_scrapper.component.cache;
+
+import dev.crashteam.ke_data_scrapper.service.MetricService;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * In-heap near cache in front of a shared Redis cache. Reads go to the local tier first and
+ * populate it from Redis on miss; writes and evictions go to both tiers and are broadcast, so other
+ * nodes drop their local copy. Local entries are keyed by the string form of the key, as in Redis.
+ */
+public class TwoTierCache implements Cache {
+
+    private static final String LOCAL_TIER = "local";
+    private static final String REDIS_TIER = "redis";
+
+    private final com.github.benmanes.caffeine.cache.Cache<Object, ValueWrapper> localCache;
+    private final Cache redisCache;
+    private final MetricService metricService;
+    private final Consumer<String> invalidation;
+
+    /**
+     * @param invalidation broadcasts a changed key to the other nodes, {@code null} for a cleared cache
+     */
+    public TwoTierCache(com.github.benmanes.caffeine.cache.Cache<Object, ValueWrapper> localCache,
+                        Cache redisCache, MetricService metricService, Consumer<String> invalidation) {
+        this.localCache = localCache;
+        this.redisCache = redisCache;
+        this.metricService = metricService;
+        this.invalidation = invalidation;
+    }
+
+    @Override
+    public String getName() {
+        return redisCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper localValue = localCache.getIfPresent(localKey(key));
+        metricService.incrementCacheRequest(getName(), LOCAL_TIER, localValue != null);
+        if (localValue != null) {
+            return localValue;
+        }
+        ValueWrapper redisValue = redisCache.get(key);
+        metricService.incrementCacheRequest(getName(), REDIS_TIER, redisValue != null);
+        if (redisValue != null) {
+            localCache.put(localKey(key), new SimpleValueWrapper(redisValue.get()));
+        }
+        return redisValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper valueWrapper = get(key);
+        Object value = valueWrapper != null ? valueWrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valueWrapper = get(key);
+        if (valueWrapper != null) {
+            return (T) valueWrapper.get();
+        }
+        T value = redisCache.get(key, valueLoader);
+        localCache.put(localKey(key), new SimpleValueWrapper(value));
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        localCache.put(localKey(key), new SimpleValueWrapper(value));
+        invalidation.accept(localKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        localCache.invalidate(localKey(key));
+        invalidation.accept(localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        localCache.invalidateAll();
+        invalidation.accept(null);
+    }
+
+    /**
+     * Drops the local copy after the key was changed on another node, {@code null} drops all of them.
+     */
+    public void invalidateLocal(String key) {
+        if (key == null) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidate(key);
+        }
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,128 @@
+package dev.crashteam.ke_data_scrapper.component.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import dev.crashteam.ke_data_scrapper.model.cache.CachedProductData;
+import dev.crashteam.ke_data_scrapper.model.cache.GraphQlCacheData;
+import dev.crashteam.ke_data_scrapper.service.MetricService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puts a {@link TwoTierCache} in front of the near cache names. Changes of a near cache are published
+ * to {@link RedisKey#KE_CACHE_INVALIDATION}, every node drops its local copy of the changed key. Pub/sub
+ * does not redeliver, so a message lost on reconnect leaves a local copy stale until the local ttl.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private static final byte[] CHANNEL = RedisKey.KE_CACHE_INVALIDATION.getKey().getBytes(StandardCharsets.UTF_8);
+
+    private final CacheManager redisCacheManager;
+    private final MetricService metricService;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Set<String> nearCacheNames;
+    private final long maxWeight;
+    private final Duration ttl;
+    private final String origin = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager redisCacheManager, MetricService metricService,
+                               RedisTemplate<String, Object> redisTemplate,
+                               Set<String> nearCacheNames, long maxWeight, Duration ttl) {
+        this.redisCacheManager = redisCacheManager;
+        this.metricService = metricService;
+        this.redisTemplate = redisTemplate;
+        this.nearCacheNames = nearCacheNames;
+        this.maxWeight = maxWeight;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null || !nearCacheNames.contains(name)) {
+            return redisCache;
+        }
+        return caches.computeIfAbsent(name, it -> new TwoTierCache(localCache(it), redisCache, metricService,
+                key -> publishInvalidation(it, key)));
+    }
+
+    /**
+     * Drops local copies changed on other nodes, messages of this node are skipped.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        // origin|cache name|key, no key for a cleared cache
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 2 || origin.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocal(parts.length == 3 ? parts[2] : null);
+        }
+    }
+
+    private void publishInvalidation(String name, String key) {
+        String body = key != null ? origin + '|' + name + '|' + key : origin + '|' + name;
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.publish(CHANNEL, body.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            log.warn("Failed to publish invalidation of cache - {} key - {}", name, key, e);
+        }
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Cache.ValueWrapper> localCache(String name) {
+        return Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Object key, Cache.ValueWrapper value) -> weigh(value.get()))
+                .expireAfterWrite(ttl)
+                .removalListener((Object key, Cache.ValueWrapper value, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        metricService.incrementCacheEviction(name, "local", cause.name().toLowerCase());
+                    }
+                })
+                .build();
+    }
+
+    private static int weigh(Object value) {
+        if (value instanceof CachedProductData productData) {
+            int weight = 1;
+            if (productData.getSkuList() != null) {
+                weight += productData.getSkuList().size();
+            }
+            if (productData.getCharacteristics() != null) {
+                for (var characteristic : productData.getCharacteristics()) {
+                    weight += characteristic != null && characteristic.getValues() != null ? characteristic.getValues().size() : 1;
+                }
+            }
+            return weight;
+        }
+        if (value instanceof GraphQlCacheData graphData && graphData.getData() != null
+                && graphData.getData().getMakeSearch() != null && graphData.getData().getMakeSearch().getItems() != null) {
+            return 1 + graphData.getData().getMakeSearch().getItems().size();
+        }
+        return 1;
+    }
+}
@@ -5,9 +5,14 @@ import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.kinesis.AmazonKinesis;
 import com.amazonaws.services.kinesis.AmazonKinesisClientBuilder;
+import dev.crashteam.ke_data_scrapper.model.stream.AwsStreamMessage;
+import dev.crashteam.ke_data_scrapper.service.stream.KinesisAggregatingMessagePublisher;
+import dev.crashteam.ke_data_scrapper.service.stream.KinesisBatchMessagePublisher;
+import dev.crashteam.ke_data_scrapper.service.stream.MessagePublisher;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
 public class AwsConfiguration {
@@ -23,4 +28,16 @@ public class AwsConfiguration {
                 .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
                 .build();
     }
+
+    @Bean
+    @Primary
+    public MessagePublisher<AwsStreamMessage> kinesisMessagePublisher(@Value("${app.aws-stream.publisher}") String publisher,
+                                                                      KinesisBatchMessagePublisher batchMessagePublisher,
+                                                                      KinesisAggregatingMessagePublisher aggregatingMessagePublisher) {
+        return switch (publisher) {
+            case "batch" -> batchMessagePublisher;
+            case "aggregated" -> aggregatingMessagePublisher;
+            default -> throw new IllegalArgumentException("Unknown aws stream publisher - " + publisher);
+        };
+    }
 }
@@ -0,0 +1,51 @@
+package dev.crashteam.ke_data_scrapper.configuration;
+
+import dev.crashteam.ke_data_scrapper.component.cache.TwoTierCacheManager;
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import dev.crashteam.ke_data_scrapper.service.MetricService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Set;
+
+@Configuration
+public class CacheConfiguration {
+
+    @Bean
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory,
+                                               ObjectProvider<RedisCacheManagerBuilderCustomizer> customizers) {
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(redisConnectionFactory);
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        return builder.build();
+    }
+
+    @Bean
+    @Primary
+    public TwoTierCacheManager cacheManager(RedisCacheManager redisCacheManager,
+                                            MetricService metricService,
+                                            RedisTemplate<String, Object> redisTemplate,
+                                            @Value("${app.cache.near.names}") Set<String> nearCacheNames,
+                                            @Value("${app.cache.near.max-weight}") long maxWeight,
+                                            @Value("${app.cache.near.ttl}") Duration ttl) {
+        return new TwoTierCacheManager(redisCacheManager, metricService, redisTemplate, nearCacheNames, maxWeight, ttl);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                            TwoTierCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, ChannelTopic.of(RedisKey.KE_CACHE_INVALIDATION.getKey()));
+        return container;
+    }
+}
@@ -1,7 +1,8 @@
 package dev.crashteam.ke_data_scrapper.configuration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import dev.crashteam.ke_data_scrapper.component.GzipRedisSerializer;
+import dev.crashteam.ke_data_scrapper.component.cache.CacheCodec;
+import dev.crashteam.ke_data_scrapper.component.cache.CompactCacheRedisSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -34,6 +35,15 @@ public class LocalRedisConfiguration {
     @Value("${spring.redis.password}")
     private String redisPassword;
 
+    @Value("${app.cache.codec}")
+    private CacheCodec cacheCodec;
+
+    @Value("${app.cache.compression}")
+    private CompactCacheRedisSerializer.Compression cacheCompression;
+
+    @Value("${app.cache.product-ttl}")
+    private Duration productCacheTtl;
+
     @Bean
     @Primary
     public LettuceConnectionFactory lettuceConnectionFactory() {
@@ -66,11 +76,12 @@ public class LocalRedisConfiguration {
         return builder -> builder
                 .withCacheConfiguration("productCache",
                         RedisCacheConfiguration.defaultCacheConfig()
+                                .entryTtl(productCacheTtl)
                                 .serializeValuesWith(RedisSerializationContext.SerializationPair
-                                        .fromSerializer(new GzipRedisSerializer())))
+                                        .fromSerializer(cacheCodec.serializer(cacheCompression))))
                 .withCacheConfiguration("graphQlCache",
                         RedisCacheConfiguration.defaultCacheConfig()
                                 .serializeValuesWith(RedisSerializationContext.SerializationPair
-                                        .fromSerializer(new GzipRedisSerializer())));
+                                        .fromSerializer(cacheCodec.serializer(cacheCompression))));
     }
 }
@@ -1,6 +1,5 @@
 package dev.crashteam.ke_data_scrapper.job;
 
-import dev.crashteam.ke_data_scrapper.service.ProductDataService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.Job;
@@ -16,11 +15,8 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class CacheHandler implements Job {
 
-    private final ProductDataService productDataService;
-
     @Override
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
         //TODO: Delete this job
-        //productDataService.delete();
     }
 }
@@ -9,6 +9,7 @@ import dev.crashteam.ke_data_scrapper.model.dto.ProductPositionMessage;
 import dev.crashteam.ke_data_scrapper.model.ke.KeGQLResponse;
 import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
 import dev.crashteam.ke_data_scrapper.service.JobUtilService;
+import dev.crashteam.ke_data_scrapper.service.position.PositionEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -75,7 +76,6 @@ public class PositionProductJob implements Job {
         log.info("Starting position/product job with category id - {}", categoryId);
         AtomicLong offset = (AtomicLong) jobDetail.getJobDataMap().get("offset");
         long limit = 100;
-        AtomicLong position = new AtomicLong(0);
         while (true) {
             try {
                 KeGQLResponse gqlResponse = jobUtilService.getResponse(jobExecutionContext, offset, categoryId, limit);
@@ -96,9 +96,10 @@ public class PositionProductJob implements Job {
                 log.info("Iterate through products for itemsCount={};categoryId={}", productItems.size(), categoryId);
 
                 List<Callable<Void>> callables = new ArrayList<>();
-                for (KeGQLResponse.CatalogCardWrapper productItem : productItems) {
+                for (int index = 0; index < productItems.size(); index++) {
+                    KeGQLResponse.CatalogCardWrapper productItem = productItems.get(index);
                     callables.add(postProductRecord(productItem, categoryId));
-                    callables.add(postPositionRecord(productItem, position, categoryId));
+                    callables.add(postPositionRecord(productItem, PositionEngine.positionOf(offset.get(), index), categoryId));
                 }
                 callables.stream()
                         .map(jobExecutor::submit)
@@ -153,9 +154,8 @@ public class PositionProductJob implements Job {
         };
     }
 
-    private Callable<Void> postPositionRecord(KeGQLResponse.CatalogCardWrapper productItem, AtomicLong position, Long categoryId) {
+    private Callable<Void> postPositionRecord(KeGQLResponse.CatalogCardWrapper productItem, long position, Long categoryId) {
         return () -> {
-            position.incrementAndGet();
             Long itemId = Optional.ofNullable(productItem.getCatalogCard()).map(KeGQLResponse.CatalogCard::getProductId)
                     .orElseThrow(() -> new KeGqlRequestException("Catalog card can't be null"));
             KeGQLResponse.CatalogCard productItemCard = productItem.getCatalogCard();
@@ -202,7 +202,7 @@ public class PositionProductJob implements Job {
                         }).map(KeProduct.SkuData::getId).toList();
                 for (Long skuId : skuIds) {
                     ProductPositionMessage positionMessage = ProductPositionMessage.builder()
-                            .position(position.get())
+                            .position(position)
                             .productId(productItemCard.getProductId())
                             .skuId(skuId)
                             .categoryId(categoryId)
@@ -223,7 +223,7 @@ public class PositionProductJob implements Job {
 
                 for (Long skuId : skuIds) {
                     ProductPositionMessage positionMessage = ProductPositionMessage.builder()
-                            .position(position.get())
+                            .position(position)
                             .productId(productItemCard.getProductId())
                             .skuId(skuId)
                             .categoryId(categoryId)
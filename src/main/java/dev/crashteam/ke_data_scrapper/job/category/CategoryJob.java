@@ -1,17 +1,14 @@
 package dev.crashteam.ke_data_scrapper.job.category;
 
 import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
-import com.amazonaws.services.kinesis.model.PutRecordsResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.protobuf.Timestamp;
-import dev.crashteam.ke.scrapper.data.v1.KeCategoryChange;
 import dev.crashteam.ke.scrapper.data.v1.KeScrapperEvent;
+import dev.crashteam.ke_data_scrapper.aws.KinesisEventEncoder;
 import dev.crashteam.ke_data_scrapper.mapper.KeCategoryToMessageMapper;
-import dev.crashteam.ke_data_scrapper.model.ke.KeCategory;
-import dev.crashteam.ke_data_scrapper.model.ke.KeGQLResponse;
+import dev.crashteam.ke_data_scrapper.model.category.CategoryTree;
 import dev.crashteam.ke_data_scrapper.model.stream.AwsStreamMessage;
-import dev.crashteam.ke_data_scrapper.service.integration.KeService;
-import dev.crashteam.ke_data_scrapper.service.stream.AwsStreamMessagePublisher;
+import dev.crashteam.ke_data_scrapper.service.CategorySnapshotService;
+import dev.crashteam.ke_data_scrapper.service.stream.MessagePublisher;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.DisallowConcurrentExecution;
@@ -24,11 +21,9 @@ import org.springframework.data.redis.connection.RedisStreamCommands;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Component;
 
-import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 @Slf4j
 @Component
@@ -36,7 +31,7 @@ import java.util.UUID;
 public class CategoryJob implements Job {
 
     @Autowired
-    KeService keService;
+    CategorySnapshotService categorySnapshotService;
 
     @Autowired
     RetryTemplate retryTemplate;
@@ -51,7 +46,7 @@ public class CategoryJob implements Job {
     KeCategoryToMessageMapper categoryMapper;
 
     @Autowired
-    AwsStreamMessagePublisher awsStreamMessagePublisher;
+    MessagePublisher<AwsStreamMessage> kinesisMessagePublisher;
 
     @Value("${app.stream.category.key}")
     public String streamKey;
@@ -63,43 +58,28 @@ public class CategoryJob implements Job {
     @Override
     @SneakyThrows
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
-        List<KeCategory.Data> rootCategories = keService.getRootCategories();
-        KeGQLResponse gqlResponse = keService.getGQLSearchResponse("1", 0, 0);
-        List<KeGQLResponse.ResponseCategoryWrapper> categoryTree = gqlResponse.getData().getMakeSearch().getCategoryTree();
+        CategoryTree categoryTree = categorySnapshotService.refresh();
         List<PutRecordsRequestEntry> entries = new ArrayList<>();
-        for (KeCategory.Data rootCategory : rootCategories) {
-            entries.add(getAwsMessage(rootCategory, categoryTree));
+        Instant scrapTime = Instant.now();
+        for (int root : categoryTree.roots()) {
+            entries.add(getAwsMessage(categoryTree, root, scrapTime));
         }
+        log.info("CATEGORY JOB : Mapped {} root categories of {} categories", entries.size(), categoryTree.size());
         try {
-            PutRecordsResult recordsResult = awsStreamMessagePublisher.publish(new AwsStreamMessage(awsStreamName, entries));
-            log.info("CATEGORY JOB : Posted [{}] records to AWS stream - [{}]",
-                    recordsResult.getRecords().size(), awsStreamName);
+            Object queued = kinesisMessagePublisher.publish(new AwsStreamMessage(awsStreamName, entries));
+            log.info("CATEGORY JOB : Queued [{}] records to AWS stream - [{}]",
+                    queued, awsStreamName);
         } catch (Exception e) {
             log.error("CATEGORY JOB : AWS ERROR, couldn't publish to stream - [{}]", awsStreamName, e);
         }
     }
 
-    private PutRecordsRequestEntry getAwsMessage(
-            KeCategory.Data category,
-            List<KeGQLResponse.ResponseCategoryWrapper> categoryTree) {
+    private PutRecordsRequestEntry getAwsMessage(CategoryTree categoryTree, int root, Instant scrapTime) {
         try {
-            Instant now = Instant.now();
-            dev.crashteam.ke.scrapper.data.v1.KeCategory keCategory = categoryMapper.mapToMessage(category, categoryTree);
-            KeScrapperEvent scrapperEvent = KeScrapperEvent.newBuilder()
-                    .setEventId(UUID.randomUUID().toString())
-                    .setScrapTime(Timestamp.newBuilder()
-                            .setSeconds(now.getEpochSecond())
-                            .setNanos(now.getNano())
-                            .build())
-                    .setEventPayload(KeScrapperEvent.EventPayload.newBuilder()
-                            .setKeCategoryChange(KeCategoryChange.newBuilder()
-                                    .setCategory(keCategory).build())
-                            .build())
-                    .build();
-            PutRecordsRequestEntry requestEntry = new PutRecordsRequestEntry();
-            requestEntry.setPartitionKey(String.valueOf(category.getId()));
-            requestEntry.setData(ByteBuffer.wrap(scrapperEvent.toByteArray()));
-            return requestEntry;
+            KeScrapperEvent.Builder event = KinesisEventEncoder.newEvent(scrapTime);
+            event.getEventPayloadBuilder().getKeCategoryChangeBuilder()
+                    .setCategory(categoryMapper.mapToMessage(categoryTree, root));
+            return KinesisEventEncoder.toEntry(event, String.valueOf(categoryTree.id(root)));
         } catch (Exception ex) {
             log.error("Unexpected exception during publish AWS stream message returning NULL", ex);
         }
@@ -1,24 +1,22 @@
 package dev.crashteam.ke_data_scrapper.job.position;
 
 import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
-import com.amazonaws.services.kinesis.model.PutRecordsResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.protobuf.Timestamp;
-import dev.crashteam.ke.scrapper.data.v1.KeProductCategoryPositionChange;
-import dev.crashteam.ke.scrapper.data.v1.KeScrapperEvent;
 import dev.crashteam.ke_data_scrapper.exception.KeGqlRequestException;
+import dev.crashteam.ke_data_scrapper.mapper.KePositionToMessageMapper;
 import dev.crashteam.ke_data_scrapper.model.Constant;
 import dev.crashteam.ke_data_scrapper.model.cache.CachedProductData;
 import dev.crashteam.ke_data_scrapper.model.cache.GraphQlCacheData;
-import dev.crashteam.ke_data_scrapper.model.ke.KeCategory;
-import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
 import dev.crashteam.ke_data_scrapper.model.stream.AwsStreamMessage;
+import dev.crashteam.ke_data_scrapper.service.JobGenerationService;
 import dev.crashteam.ke_data_scrapper.service.JobUtilService;
 import dev.crashteam.ke_data_scrapper.service.MetricService;
+import dev.crashteam.ke_data_scrapper.service.ProductRunService;
 import dev.crashteam.ke_data_scrapper.service.integration.KeService;
-import dev.crashteam.ke_data_scrapper.service.stream.AwsStreamMessagePublisher;
+import dev.crashteam.ke_data_scrapper.service.position.PositionEngine;
+import dev.crashteam.ke_data_scrapper.service.position.PositionStateService;
+import dev.crashteam.ke_data_scrapper.service.stream.MessagePublisher;
 import dev.crashteam.ke_data_scrapper.service.stream.RedisStreamMessagePublisher;
-import dev.crashteam.ke_data_scrapper.util.ScrapperUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
@@ -28,14 +26,11 @@ import org.springframework.data.redis.connection.RedisStreamCommands;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
-import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -58,7 +53,7 @@ public class PositionJob implements InterruptableJob {
     RedisStreamMessagePublisher messagePublisher;
 
     @Autowired
-    AwsStreamMessagePublisher awsStreamMessagePublisher;
+    MessagePublisher<AwsStreamMessage> kinesisMessagePublisher;
 
     @Autowired
     MetricService metricService;
@@ -66,6 +61,15 @@ public class PositionJob implements InterruptableJob {
     @Autowired
     KeService keService;
 
+    @Autowired
+    ProductRunService productRunService;
+
+    @Autowired
+    KePositionToMessageMapper positionMapper;
+
+    @Autowired
+    JobGenerationService jobGenerationService;
+
     @Value("${app.stream.position.key}")
     public String streamKey;
 
@@ -81,12 +85,17 @@ public class PositionJob implements InterruptableJob {
     @Value("${app.aws-stream.ke-stream.name}")
     public String streamName;
 
-    ExecutorService jobExecutor = Executors.newFixedThreadPool(2);
+    @Autowired
+    PositionEngine positionEngine;
+
+    @Autowired
+    PositionStateService positionStateService;
 
     private static final String JOB_TYPE = "POSITION_JOB";
 
-    private boolean jobRunning = true;
+    private volatile boolean jobRunning = true;
     private Long jobCategoryId;
+    private JobGenerationService.Registration registration;
 
     @Override
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
@@ -96,27 +105,32 @@ public class PositionJob implements InterruptableJob {
         jobCategoryId = categoryId;
         jobDetail.getJobDataMap().put("offset", new AtomicLong(0));
         jobDetail.getJobDataMap().put("totalItemProcessed", new AtomicLong(0));
-        log.info("Starting position job with category id - {}", categoryId);
+        boolean snapshot = positionStateService.isSnapshotDue(categoryId);
+        log.info("Starting position job with category id - {}, full snapshot - {}", categoryId, snapshot);
         AtomicLong offset = (AtomicLong) jobDetail.getJobDataMap().get("offset");
         AtomicLong totalItemProcessed = (AtomicLong) jobDetail.getJobDataMap().get("totalItemProcessed");
         long limit = 100;
-        AtomicLong position = new AtomicLong(0);
-        List<Long> rootCategories = keService.getRootCategories()
-                .stream().map(KeCategory.Data::getId).toList();
+        String runId = productRunService.getCurrentRunId();
+        boolean completed = true;
+        // pages of the snapshot not yet delivered, plus one hold until the last page is queued
+        AtomicInteger undelivered = new AtomicInteger(1);
+        Runnable snapshotDelivered = () -> {
+            if (undelivered.decrementAndGet() == 0) {
+                positionStateService.snapshotPublished(categoryId);
+            }
+        };
+        String jobType = PositionJob.class.getSimpleName();
+        registration = jobGenerationService.register(jobType,
+                jobGenerationService.generationOf(jobDetail.getJobDataMap(), jobType), jobDetail.getKey().getName());
         try {
-            while (jobRunning) {
+            while (isRunning()) {
                 try {
                     if (offset.get() >= maxOffset) {
                         log.info("Total offset - [{}] of category - [{}], " +
                                 "skipping further parsing... ", offset.get(), categoryId);
                         break;
                     }
-                    GraphQlCacheData gqlResponse;
-                    if (rootCategories.stream().anyMatch(categoryId::equals)) {
-                        gqlResponse = jobUtilService.getCachedGraphData(offset, categoryId, limit);
-                    } else {
-                        gqlResponse = jobUtilService.getSimplifiedGraphData(offset, categoryId, limit);
-                    }
+                    GraphQlCacheData gqlResponse = jobUtilService.getCachedGraphData(offset, categoryId, limit, runId);
                     if (gqlResponse == null) {
                         break;
                     }
@@ -135,24 +149,34 @@ public class PositionJob implements InterruptableJob {
                         break;
                     }
                     log.info("Iterate through products for position itemsCount={};categoryId={}", productItems.size(), categoryId);
-                    List<Callable<List<PutRecordsRequestEntry>>> callables = new ArrayList<>();
-                    for (GraphQlCacheData.CatalogCardWrapper productItem : productItems) {
-                        if (jobRunning) {
-                            callables.add(postPositionRecord(productItem, position, categoryId));
+                    Map<Long, Long> positions = new LinkedHashMap<>();
+                    for (int index = 0; index < productItems.size(); index++) {
+                        GraphQlCacheData.CatalogCard catalogCard = productItems.get(index).getCatalogCard();
+                        if (catalogCard != null && catalogCard.getProductId() != null) {
+                            positions.put(catalogCard.getProductId(), PositionEngine.positionOf(offset.get(), index));
                         }
                     }
-                    List<Future<List<PutRecordsRequestEntry>>> futures = jobExecutor.invokeAll(callables);
-                    List<PutRecordsRequestEntry> requestEntries = futures.stream().map(it -> {
-                                try {
-                                    return it.get();
-                                } catch (Exception e) {
-                                    log.error("Error while trying to get AWS entries for position job:", e);
+                    Set<Long> changed = snapshot ? positions.keySet() : positionStateService.changed(categoryId, positions);
+                    Map<Long, Long> published = new ConcurrentHashMap<>();
+                    List<PutRecordsRequestEntry> requestEntries = positionEngine.mapPage(offset.get(), productItems,
+                            this::isRunning, (productItem, position) -> {
+                                Long productId = productItem.getCatalogCard() != null ? productItem.getCatalogCard().getProductId() : null;
+                                if (productId != null && !changed.contains(productId)) {
+                                    return null;
+                                }
+                                List<PutRecordsRequestEntry> entries = positionEntries(productItem, position, categoryId);
+                                if (entries != null) {
+                                    published.put(productId, position);
                                 }
-                                return null;
-                            }).filter(Objects::nonNull)
-                            .flatMap(List::stream)
-                            .toList();
-                    publishToAwsStream(requestEntries, categoryId);
+                                return entries;
+                            });
+                    if (!requestEntries.isEmpty()) {
+                        undelivered.incrementAndGet();
+                        publishToAwsStream(requestEntries, categoryId, () -> {
+                            positionStateService.delivered(categoryId, published);
+                            snapshotDelivered.run();
+                        });
+                    }
                     offset.addAndGet(limit);
                     totalItemProcessed.addAndGet(productItems.size());
                     jobExecutionContext.getJobDetail().getJobDataMap().put("totalItemProcessed", totalItemProcessed);
@@ -161,11 +185,15 @@ public class PositionJob implements InterruptableJob {
                     log.error("Search for position with category id [{}] finished with exception - [{}] on offset - {}", categoryId,
                             Optional.ofNullable(e.getCause()).orElse(e).getMessage(), offset.get());
                     metricService.incrementErrorJob(JOB_TYPE);
+                    completed = false;
                     break;
                 }
             }
+            if (snapshot && completed && isRunning()) {
+                snapshotDelivered.run();
+            }
         } finally {
-            jobExecutor.shutdown();
+            registration.close();
         }
         Instant end = Instant.now();
         log.info("Position job - Finished collecting for category id - {}, total items processed - {} in {} seconds",
@@ -173,130 +201,39 @@ public class PositionJob implements InterruptableJob {
         metricService.incrementFinishJob(JOB_TYPE);
     }
 
-    private Callable<List<PutRecordsRequestEntry>> postPositionRecord(GraphQlCacheData.CatalogCardWrapper productItem, AtomicLong position, Long categoryId) {
-        return () -> {
-            position.incrementAndGet();
-            Long itemId = Optional.ofNullable(productItem.getCatalogCard()).map(GraphQlCacheData.CatalogCard::getProductId)
-                    .orElseThrow(() -> new KeGqlRequestException("Catalog card can't be null"));
-            GraphQlCacheData.CatalogCard productItemCard = productItem.getCatalogCard();
-            List<GraphQlCacheData.CharacteristicValue> productItemCardCharacteristics = productItemCard.getCharacteristicValues();
-            CachedProductData productResponse = jobUtilService.getCachedProductData(itemId);
-            if (productResponse == null) {
-                log.info("Product data with id - %s returned null, continue with next item, if it exists...".formatted(itemId));
-                return null;
-            }
-            List<PutRecordsRequestEntry> entries = new ArrayList<>();
-            if (!CollectionUtils.isEmpty(productItemCardCharacteristics)) {
-                var productItemCardCharacteristic = productItemCardCharacteristics.get(0);
-                var characteristicId = productItemCardCharacteristic.getId();
-                var productCharacteristics = productResponse.getCharacteristics();
-
-                Integer indexOfCharacteristic = null;
-                CHARACTERISTICS:
-                for (KeProduct.CharacteristicsData productCharacteristic : productCharacteristics) {
-                    List<KeProduct.Characteristic> characteristicValues = productCharacteristic.getValues();
-                    if (CollectionUtils.isEmpty(characteristicValues)) continue;
-                    for (int index = 0; index < characteristicValues.size(); index++) {
-                        KeProduct.Characteristic characteristic = characteristicValues.get(index);
-                        if (characteristic != null && characteristic.getId().equals(characteristicId)) {
-                            indexOfCharacteristic = index;
-                            break CHARACTERISTICS;
-                        }
-                    }
-                }
-
-                if (indexOfCharacteristic == null) {
-                    log.warn("Something goes wrong. Can't find index of characteristic." +
-                            " productId={}; characteristicId={}", productItemCard.getProductId(), characteristicId);
-                    return null;
-                }
-                Integer finalIndexOfCharacteristic = indexOfCharacteristic;
-                List<Long> skuIds = productResponse.getSkuList()
-                        .stream()
-                        .filter(productSku -> {
-                            if (!CollectionUtils.isEmpty(productSku.getCharacteristics())) {
-                                boolean anyMatch = productSku.getCharacteristics().stream()
-                                        .anyMatch(it -> finalIndexOfCharacteristic.equals(it.getValueIndex()));
-                                return anyMatch && productSku.getAvailableAmount() > 0;
-                            }
-                            return false;
-                        }).map(KeProduct.SkuData::getId).toList();
-                for (Long skuId : skuIds) {
-                    PutRecordsRequestEntry awsMessage = getAwsMessage(position.get(), productItemCard.getProductId(), skuId, categoryId);
-                    if (awsMessage != null) {
-                        entries.add(awsMessage);
-                    }
-                }
-            } else {
-                List<Long> skuIds = productResponse.getSkuList()
-                        .stream()
-                        .filter(sku -> sku.getAvailableAmount() > 0)
-                        .map(KeProduct.SkuData::getId)
-                        .toList();
-
-                for (Long skuId : skuIds) {
-                    PutRecordsRequestEntry awsMessage = getAwsMessage(position.get(), productItemCard.getProductId(), skuId, categoryId);
-                    if (awsMessage != null) {
-                        entries.add(awsMessage);
-                    }
-                }
-            }
-            return entries;
-        };
+    private List<PutRecordsRequestEntry> positionEntries(GraphQlCacheData.CatalogCardWrapper productItem, long position, Long categoryId) {
+        Long itemId = Optional.ofNullable(productItem.getCatalogCard()).map(GraphQlCacheData.CatalogCard::getProductId)
+                .orElseThrow(() -> new KeGqlRequestException("Catalog card can't be null"));
+        GraphQlCacheData.CatalogCard productItemCard = productItem.getCatalogCard();
+        List<GraphQlCacheData.CharacteristicValue> productItemCardCharacteristics = productItemCard.getCharacteristicValues();
+        CachedProductData productResponse = jobUtilService.getCachedProductData(itemId);
+        if (productResponse == null) {
+            log.info("Product data with id - %s returned null, continue with next item, if it exists...".formatted(itemId));
+            return null;
+        }
+        Long characteristicId = CollectionUtils.isEmpty(productItemCardCharacteristics)
+                ? null : productItemCardCharacteristics.get(0).getId();
+        return positionMapper.mapToEntries(position, productItemCard.getProductId(), categoryId, characteristicId,
+                productResponse.getCharacteristics(), productResponse.getSkuList());
     }
 
-    private void publishToAwsStream(List<PutRecordsRequestEntry> requestEntries, Long categoryId) {
+    private void publishToAwsStream(List<PutRecordsRequestEntry> requestEntries, Long categoryId, Runnable onDelivered) {
         try {
-            if (requestEntries.size() > 100) {
-                ScrapperUtils.getBatches(requestEntries, 100).forEach(entries -> {
-                    PutRecordsResult recordsResult = awsStreamMessagePublisher.publish(new AwsStreamMessage(streamName, entries));
-                    log.info("POSITION JOB : Posted [{}] records to AWS stream - [{}] for categoryId - [{}]",
-                            recordsResult.getRecords().size(), streamName, categoryId);
-                });
-            } else {
-                PutRecordsResult recordsResult = awsStreamMessagePublisher.publish(new AwsStreamMessage(streamName, requestEntries));
-                log.info("POSITION JOB : Posted [{}] records to AWS stream - [{}] for categoryId - [{}]",
-                        recordsResult.getRecords().size(), streamName, categoryId);
-            }
+            Object queued = kinesisMessagePublisher.publish(new AwsStreamMessage(streamName, requestEntries, onDelivered));
+            log.info("POSITION JOB : Queued [{}] records to AWS stream - [{}] for categoryId - [{}]",
+                    queued, streamName, categoryId);
         } catch (Exception e) {
             log.error("POSITION JOB : AWS ERROR, couldn't publish to stream - [{}] for category - [{}]", streamName, categoryId, e);
         }
     }
 
-    private PutRecordsRequestEntry getAwsMessage(Long position, Long productId, Long skuId, Long categoryId) {
-        try {
-            Instant now = Instant.now();
-            var keProductCategoryPositionChange = KeProductCategoryPositionChange.newBuilder()
-                    .setPosition(position)
-                    .setProductId(productId)
-                    .setSkuId(skuId)
-                    .setCategoryId(categoryId).build();
-            KeScrapperEvent scrapperEvent = KeScrapperEvent.newBuilder()
-                    .setEventId(UUID.randomUUID().toString())
-                    .setScrapTime(Timestamp.newBuilder()
-                            .setSeconds(now.getEpochSecond())
-                            .setNanos(now.getNano())
-                            .build())
-                    .setEventPayload(KeScrapperEvent.EventPayload.newBuilder()
-                            .setKeProductPositionChange(keProductCategoryPositionChange)
-                            .build())
-                    .build();
-            PutRecordsRequestEntry requestEntry = new PutRecordsRequestEntry();
-            requestEntry.setPartitionKey(productId.toString());
-            requestEntry.setData(ByteBuffer.wrap(scrapperEvent.toByteArray()));
-            log.info("POSITION JOB - filling AWS entries for categoryId - [{}] productId - [{}]",
-                    categoryId, productId);
-            return requestEntry;
-        } catch (Exception ex) {
-            log.error("Unexpected exception during publish AWS stream message returning NULL", ex);
-        }
-        return null;
+    private boolean isRunning() {
+        return jobRunning && registration.isCurrent();
     }
 
     @Override
     public void interrupt() throws UnableToInterruptJobException {
         log.info("Interrupting Position job with id - {}", jobCategoryId);
         this.jobRunning = false;
-        jobExecutor.shutdown();
     }
 }
@@ -1,12 +1,14 @@
 package dev.crashteam.ke_data_scrapper.job.position;
 
 import dev.crashteam.ke_data_scrapper.model.Constant;
+import dev.crashteam.ke_data_scrapper.model.CrawlMode;
 import dev.crashteam.ke_data_scrapper.service.SimpleTriggerJobCreatorService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -16,8 +18,14 @@ public class PositionMasterJob implements Job {
 
     private final SimpleTriggerJobCreatorService creatorService;
 
+    @Value("${app.job.crawl-mode}")
+    private CrawlMode crawlMode;
+
     @Override
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
-        creatorService.createJob(Constant.POSITION_JOB_NAME, Constant.POSITION_CATEGORY_KEY, PositionJob.class, true);
+        // in unified mode the product pass emits positions of the categories it crawls, the deeper and
+        // unlisted categories are still left to position jobs
+        creatorService.createJob(Constant.POSITION_JOB_NAME, Constant.POSITION_CATEGORY_KEY, PositionJob.class, true,
+                crawlMode == CrawlMode.UNIFIED);
     }
 }
@@ -1,25 +1,13 @@
 package dev.crashteam.ke_data_scrapper.job.product;
 
-import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
-import com.amazonaws.services.kinesis.model.PutRecordsResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.protobuf.Timestamp;
-import dev.crashteam.ke.scrapper.data.v1.KeProductChange;
-import dev.crashteam.ke.scrapper.data.v1.KeScrapperEvent;
-import dev.crashteam.ke_data_scrapper.mapper.KeProductToMessageMapper;
-import dev.crashteam.ke_data_scrapper.mapper.ProductCorruptedException;
 import dev.crashteam.ke_data_scrapper.model.Constant;
-import dev.crashteam.ke_data_scrapper.model.dto.KeProductMessage;
-import dev.crashteam.ke_data_scrapper.model.ke.KeGQLResponse;
-import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
-import dev.crashteam.ke_data_scrapper.model.stream.AwsStreamMessage;
+import dev.crashteam.ke_data_scrapper.service.CategorySnapshotService;
+import dev.crashteam.ke_data_scrapper.service.JobGenerationService;
 import dev.crashteam.ke_data_scrapper.service.JobUtilService;
 import dev.crashteam.ke_data_scrapper.service.MetricService;
-import dev.crashteam.ke_data_scrapper.service.ProductDataService;
-import dev.crashteam.ke_data_scrapper.service.integration.KeService;
-import dev.crashteam.ke_data_scrapper.service.stream.AwsStreamMessagePublisher;
+import dev.crashteam.ke_data_scrapper.service.ProductCheckpointService;
 import dev.crashteam.ke_data_scrapper.service.stream.RedisStreamMessagePublisher;
-import dev.crashteam.ke_data_scrapper.util.ScrapperUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
@@ -27,16 +15,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.connection.RedisStreamCommands;
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
 
-import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 
@@ -59,24 +44,19 @@ public class ProductJob implements InterruptableJob {
     RedisStreamMessagePublisher messagePublisher;
 
     @Autowired
-    KeProductToMessageMapper messageMapper;
+    MetricService metricService;
 
     @Autowired
-    ProductDataService productDataService;
+    ProductPipeline productPipeline;
 
     @Autowired
-    MetricService metricService;
+    ProductCheckpointService checkpointService;
 
     @Autowired
-    AwsStreamMessagePublisher awsStreamMessagePublisher;
+    JobGenerationService jobGenerationService;
 
     @Autowired
-    KeService keService;
-
-    @Value("${app.aws-stream.ke-stream.name}")
-    public String streamName;
-
-    ExecutorService jobExecutor = Executors.newFixedThreadPool(2);
+    CategorySnapshotService categorySnapshotService;
 
     @Value("${app.stream.product.key}")
     public String streamKey;
@@ -87,7 +67,9 @@ public class ProductJob implements InterruptableJob {
     @Value("${app.stream.product.waitPending}")
     public Long waitPending;
 
-    private boolean jobRunning = true;
+    private volatile boolean jobRunning = true;
+
+    private JobGenerationService.Registration registration;
 
     private Long jobCategoryId;
 
@@ -95,250 +77,111 @@ public class ProductJob implements InterruptableJob {
 
     @Override
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
+        JobDetail jobDetail = jobExecutionContext.getJobDetail();
+        String jobType = ProductJob.class.getSimpleName();
+        registration = jobGenerationService.register(jobType,
+                jobGenerationService.generationOf(jobDetail.getJobDataMap(), jobType), jobDetail.getKey().getName());
+        try {
+            crawl(jobExecutionContext);
+        } finally {
+            registration.close();
+        }
+    }
+
+    private void crawl(JobExecutionContext jobExecutionContext) {
         Instant start = Instant.now();
         JobDetail jobDetail = jobExecutionContext.getJobDetail();
         Long categoryId = Long.valueOf(jobDetail.getJobDataMap().get(Constant.CATEGORY_ID_KEY).toString());
+        String runId = jobDetail.getJobDataMap().getString(Constant.RUN_ID_KEY);
         jobCategoryId = categoryId;
-
-        jobDetail.getJobDataMap().put("offset", new AtomicLong(0));
-        jobDetail.getJobDataMap().put("totalItemProcessed", new AtomicLong(0));
-        log.info("Starting job with category id - {}", categoryId);
-        AtomicLong offset = (AtomicLong) jobDetail.getJobDataMap().get("offset");
-        AtomicLong totalItemProcessed = (AtomicLong) jobDetail.getJobDataMap().get("totalItemProcessed");
-        long limit = 100;
-        try {
-            while (jobRunning) {
-                try {
-                    KeGQLResponse gqlResponse = jobUtilService.getResponse(jobExecutionContext, offset, categoryId, limit);
-                    if (gqlResponse == null || !CollectionUtils.isEmpty(gqlResponse.getErrors())) {
-                        break;
-                    }
-                    jobUtilService.putCachedGraphData(gqlResponse, offset, categoryId, limit);
-                    if (gqlResponse.getData().getMakeSearch().getTotal() <= totalItemProcessed.get()) {
-                        log.info("Total GQL response items - [{}] less or equal than total processed items - [{}] of category - [{}], " +
-                                "skipping further parsing... ", gqlResponse.getData().getMakeSearch().getTotal(), totalItemProcessed.get(), categoryId);
-                        break;
-                    }
-                    var productItems = Optional.ofNullable(gqlResponse.getData()
-                                    .getMakeSearch())
-                            .map(KeGQLResponse.MakeSearch::getItems)
-                            .filter(it -> !CollectionUtils.isEmpty(it))
-                            .orElse(Collections.emptyList());
-                    if (CollectionUtils.isEmpty(productItems)) {
-                        log.warn("Skipping all product job gql requests for categoryId - {} with offset - {}, cause items are empty", categoryId, offset);
-                        offset.addAndGet(limit);
-                        jobExecutionContext.getJobDetail().getJobDataMap().put("offset", offset);
-                        break;
-                    }
-                    log.info("Iterate through products for itemsCount={};categoryId={}", productItems.size(), categoryId);
-
-                    List<Callable<PutRecordsRequestEntry>> callables = new ArrayList<>();
-                    List<PutRecordsRequestEntry> entries = new ArrayList<>();
-                    for (KeGQLResponse.CatalogCardWrapper productItem : productItems) {
-                        if (jobRunning) {
-                            Long productId = Optional.ofNullable(productItem.getCatalogCard())
-                                    .map(KeGQLResponse.CatalogCard::getProductId).orElse(null);
-                            if (productId == null) continue;
-                            if (productDataService.save(productId)) {
-                                callables.add(postProductRecordAsync(categoryId, productItem));
-                                //entries.add(postProductRecord(productItem));
-                            }
-                        }
-                    }
-                    List<Future<PutRecordsRequestEntry>> futures = jobExecutor.invokeAll(callables);
-                    futures.forEach(it -> {
-                        try {
-                            if (it.get() != null) {
-                                entries.add(it.get());
-                            }
-                        } catch (Exception e) {
-                            log.error("Error while trying to fill AWS entries:", e);
-                        }
-                    });
-
-                    try {
-                        for (List<PutRecordsRequestEntry> batch : ScrapperUtils.getBatches(entries, 50)) {
-                            PutRecordsResult recordsResult = awsStreamMessagePublisher.publish(new AwsStreamMessage(streamName, batch));
-                            log.info("PRODUCT JOB : Posted [{}] records to AWS stream - [{}] for categoryId - [{}]",
-                                    recordsResult.getRecords().size(), streamName, categoryId);
-                        }
-                    } catch (Exception e) {
-                        log.error("PRODUCT JOB : AWS ERROR, couldn't publish to stream - [{}] for category - [{}]", streamName, categoryId, e);
-                    }
-
-                    offset.addAndGet(limit);
-                    totalItemProcessed.addAndGet(productItems.size());
-                    jobExecutionContext.getJobDetail().getJobDataMap().put("offset", offset);
-                    jobExecutionContext.getJobDetail().getJobDataMap().put("totalItemProcessed", totalItemProcessed);
-                } catch (Exception e) {
-                    log.error("Gql search for catalog with id [{}] finished with exception - [{}] on offset - {}",
-                            categoryId, Optional.ofNullable(e.getCause()).map(Throwable::getMessage).orElse(e.getMessage()),
-                            offset.get(), e);
-                    metricService.incrementErrorJob(JOB_TYPE);
-                    break;
-                }
+        String scope = String.valueOf(categoryId);
+        ProductCheckpointService.Checkpoint checkpoint = checkpointService.load(runId, scope);
+        Set<Long> done = ConcurrentHashMap.newKeySet();
+        Optional.ofNullable(checkpoint).map(ProductCheckpointService.Checkpoint::done).ifPresent(done::addAll);
+
+        if (done.contains(categoryId)) {
+            log.info("Category id - {} already done in run - {}, resuming with children", categoryId, runId);
+        } else {
+            long startOffset = resumeOffset(checkpoint, categoryId);
+            boolean resumed = begin(runId, scope, checkpoint, categoryId, startOffset, done);
+            jobDetail.getJobDataMap().put("offset", new AtomicLong(startOffset));
+            jobDetail.getJobDataMap().put("totalItemProcessed", new AtomicLong(startOffset));
+            log.info("Starting job with category id - {} from offset - {}", categoryId, startOffset);
+            AtomicLong offset = (AtomicLong) jobDetail.getJobDataMap().get("offset");
+            AtomicLong totalItemProcessed = (AtomicLong) jobDetail.getJobDataMap().get("totalItemProcessed");
+            boolean completed = productPipeline.run(runId, categoryId, offset, totalItemProcessed,
+                    (pageOffset, limit) -> jobUtilService.getResponse(jobExecutionContext, pageOffset, categoryId, limit),
+                    this::isRunning, resumed, checkpointService.tracker(runId, scope, categoryId, done));
+            if (!completed) {
+                metricService.incrementErrorJob(JOB_TYPE);
             }
-        } finally {
-            //jobExecutor.shutdown();
+            markDone(runId, scope, categoryId, done, completed);
+            Instant end = Instant.now();
+            log.debug("Product job - Finished collecting for category id - {}, total items processed - {} in {} seconds",
+                    categoryId, totalItemProcessed.get(), Duration.between(start, end).toSeconds());
+            metricService.incrementFinishJob(JOB_TYPE);
         }
-        Instant end = Instant.now();
-        log.debug("Product job - Finished collecting for category id - {}, total items processed - {} in {} seconds",
-                categoryId, totalItemProcessed.get(), Duration.between(start, end).toSeconds());
-        metricService.incrementFinishJob(JOB_TYPE);
         log.info("Starting CHILDREN jobs for category id - {}", categoryId);
-        Map<Long, Set<Long>> rootIdsMap = keService.getRootIdsMap();
-        for (Long childId : rootIdsMap.get(categoryId)) {
-            processCategory(childId);
+        Map<Long, Set<Long>> rootIdsMap = categorySnapshotService.getTree().rootIdsMap();
+        for (Long childId : rootIdsMap.getOrDefault(categoryId, Set.of())) {
+            if (!isRunning()) break;
+            if (done.contains(childId)) continue;
+            processCategory(runId, scope, checkpoint, childId, done);
         }
     }
 
-    private void processCategory(Long categoryId) {
+    private void processCategory(String runId, String scope, ProductCheckpointService.Checkpoint checkpoint,
+                                 Long categoryId, Set<Long> done) {
         Instant start = Instant.now();
-        log.info("Starting CHILD job with category id - {}", categoryId);
-        AtomicLong offset = new AtomicLong(0);
-        AtomicLong totalItemProcessed = new AtomicLong(0);
-        long limit = 100;
-        try {
-            while (jobRunning) {
-                try {
-                    KeGQLResponse gqlResponse = jobUtilService.getResponse(offset, categoryId, limit);
-                    if (gqlResponse == null || !CollectionUtils.isEmpty(gqlResponse.getErrors())) {
-                        break;
-                    }
-                    jobUtilService.putCachedGraphData(gqlResponse, offset, categoryId, limit);
-                    if (gqlResponse.getData().getMakeSearch().getTotal() <= totalItemProcessed.get()) {
-                        log.info("Total GQL response items - [{}] less or equal than total processed items - [{}] of category - [{}], " +
-                                "skipping further parsing... ", gqlResponse.getData().getMakeSearch().getTotal(), totalItemProcessed.get(), categoryId);
-                        break;
-                    }
-                    var productItems = Optional.ofNullable(gqlResponse.getData()
-                                    .getMakeSearch())
-                            .map(KeGQLResponse.MakeSearch::getItems)
-                            .filter(it -> !CollectionUtils.isEmpty(it))
-                            .orElse(Collections.emptyList());
-                    if (CollectionUtils.isEmpty(productItems)) {
-                        log.warn("Skipping all product job gql requests for categoryId - {} with offset - {}, cause items are empty", categoryId, offset);
-                        offset.addAndGet(limit);
-                        break;
-                    }
-                    log.info("Iterate through products for itemsCount={};categoryId={}", productItems.size(), categoryId);
-
-                    List<Callable<PutRecordsRequestEntry>> callables = new ArrayList<>();
-                    List<PutRecordsRequestEntry> entries = new ArrayList<>();
-                    for (KeGQLResponse.CatalogCardWrapper productItem : productItems) {
-                        if (jobRunning) {
-                            Long productId = Optional.ofNullable(productItem.getCatalogCard())
-                                    .map(KeGQLResponse.CatalogCard::getProductId).orElse(null);
-                            if (productId == null) continue;
-                            if (productDataService.save(productId)) {
-                                callables.add(postProductRecordAsync(categoryId, productItem));
-                                //entries.add(postProductRecord(productItem));
-                            }
-                        }
-                    }
-                    List<Future<PutRecordsRequestEntry>> futures = jobExecutor.invokeAll(callables);
-                    futures.forEach(it -> {
-                        try {
-                            if (it.get() != null) {
-                                entries.add(it.get());
-                            }
-                        } catch (Exception e) {
-                            log.error("Error while trying to fill AWS entries:", e);
-                        }
-                    });
-
-                    try {
-                        for (List<PutRecordsRequestEntry> batch : ScrapperUtils.getBatches(entries, 50)) {
-                            PutRecordsResult recordsResult = awsStreamMessagePublisher.publish(new AwsStreamMessage(streamName, batch));
-                            log.info("CHILD PRODUCT JOB : Posted [{}] records to AWS stream - [{}] for categoryId - [{}]",
-                                    recordsResult.getRecords().size(), streamName, categoryId);
-                        }
-                    } catch (Exception e) {
-                        log.error("CHILD PRODUCT JOB : AWS ERROR, couldn't publish to stream - [{}] for category - [{}]", streamName, categoryId, e);
-                    }
-
-                    offset.addAndGet(limit);
-                    totalItemProcessed.addAndGet(productItems.size());
-                } catch (Exception e) {
-                    log.error("Gql search for catalog with id [{}] finished with exception - [{}] on offset - {}",
-                            categoryId, Optional.ofNullable(e.getCause()).map(Throwable::getMessage).orElse(e.getMessage()),
-                            offset.get(), e);
-                    metricService.incrementErrorJob(JOB_TYPE);
-                    break;
-                }
-            }
-        } finally {
-            //jobExecutor.shutdown();
+        long startOffset = resumeOffset(checkpoint, categoryId);
+        boolean resumed = begin(runId, scope, checkpoint, categoryId, startOffset, done);
+        log.info("Starting CHILD job with category id - {} from offset - {}", categoryId, startOffset);
+        AtomicLong offset = new AtomicLong(startOffset);
+        AtomicLong totalItemProcessed = new AtomicLong(startOffset);
+        boolean completed = productPipeline.run(runId, categoryId, offset, totalItemProcessed,
+                (pageOffset, limit) -> jobUtilService.getResponse(pageOffset, categoryId, limit),
+                this::isRunning, resumed, checkpointService.tracker(runId, scope, categoryId, done));
+        if (!completed) {
+            metricService.incrementErrorJob(JOB_TYPE);
         }
+        markDone(runId, scope, categoryId, done, completed);
         Instant end = Instant.now();
         log.debug("Child Product job - Finished collecting for child category id - {}, total items processed - {} in {} seconds",
                 categoryId, totalItemProcessed.get(), Duration.between(start, end).toSeconds());
         metricService.incrementFinishJob(JOB_TYPE);
     }
 
-    private PutRecordsRequestEntry postProductRecord(Long categoryId, KeGQLResponse.CatalogCardWrapper productItem) {
-        Long itemId = Optional.ofNullable(productItem.getCatalogCard())
-                .map(KeGQLResponse.CatalogCard::getProductId)
-                .orElse(null);
-        if (itemId == null) {
-            log.warn("Product id is null continue with next item, if it exists...");
-            return null;
-        }
-        KeProduct.ProductData productData = jobUtilService.getProductData(itemId);
-        jobUtilService.putCachedProductData(productData, itemId);
-
-        if (productData == null) {
-            log.warn("Product data with id - {} returned null, continue with next item, if it exists...", itemId);
-            return null;
-        }
-
-        KeProductMessage productMessage = messageMapper.productToMessage(productData);
-        if (productMessage.isCorrupted()) {
-            log.warn("Product with id - {} is corrupted", productMessage.getProductId());
-            return null;
-        }
-
-        return getAwsMessageEntry(categoryId, productData.getId().toString(), productData);
+    private long resumeOffset(ProductCheckpointService.Checkpoint checkpoint, Long categoryId) {
+        return checkpoint != null && categoryId.equals(checkpoint.categoryId()) ? checkpoint.offset() : 0;
     }
 
-    private Callable<PutRecordsRequestEntry> postProductRecordAsync(Long categoryId, KeGQLResponse.CatalogCardWrapper productItem) {
-        return () -> postProductRecord(categoryId, productItem);
+    /**
+     * Checkpoints the category as in flight before its first page is claimed, so a retry of the job knows
+     * which category an earlier attempt may have claimed products of without delivering them.
+     *
+     * @return {@code true} if an earlier attempt of the run was crawling the category
+     */
+    private boolean begin(String runId, String scope, ProductCheckpointService.Checkpoint checkpoint,
+                          Long categoryId, long startOffset, Set<Long> done) {
+        checkpointService.save(runId, scope, new ProductCheckpointService.Checkpoint(categoryId, startOffset, done));
+        return checkpoint != null && categoryId.equals(checkpoint.categoryId());
     }
 
-    private PutRecordsRequestEntry getAwsMessageEntry(Long categoryId, String partitionKey, KeProduct.ProductData productData) {
-        try {
-            Instant now = Instant.now();
-            KeProductChange keProductChange = messageMapper.mapToMessage(productData);
-            KeScrapperEvent scrapperEvent = KeScrapperEvent.newBuilder()
-                    .setEventId(UUID.randomUUID().toString())
-                    .setScrapTime(Timestamp.newBuilder()
-                            .setSeconds(now.getEpochSecond())
-                            .setNanos(now.getNano())
-                            .build())
-                    .setEventPayload(KeScrapperEvent.EventPayload.newBuilder()
-                            .setKeProductChange(keProductChange)
-                            .build())
-                    .build();
-            PutRecordsRequestEntry requestEntry = new PutRecordsRequestEntry();
-            requestEntry.setPartitionKey(partitionKey);
-            requestEntry.setData(ByteBuffer.wrap(scrapperEvent.toByteArray()));
-            log.info("PRODUCT JOB - filling AWS entries for categoryId - [{}] productId - [{}]",
-                    productData.getCategory().getId(), productData.getId());
-            return requestEntry;
-        } catch (ProductCorruptedException ex) {
-            log.warn("Corrupted product item, ignoring it", ex);
-        } catch (Exception ex) {
-            log.error("Unexpected exception during publish AWS stream message", ex);
+    private void markDone(String runId, String scope, Long categoryId, Set<Long> done, boolean completed) {
+        if (!completed || !isRunning()) {
+            return;
         }
-        log.warn("AWS message for categoryId - [{}] productId - [{}] is null",
-                categoryId, productData.getId());
-        return null;
+        done.add(categoryId);
+        checkpointService.save(runId, scope, new ProductCheckpointService.Checkpoint(categoryId, 0, done));
+    }
+
+    private boolean isRunning() {
+        return jobRunning && registration.isCurrent();
     }
 
     @Override
     public void interrupt() throws UnableToInterruptJobException {
         log.info("Interrupting Product job with id - {}", jobCategoryId);
         this.jobRunning = false;
-        jobExecutor.shutdown();
     }
 }
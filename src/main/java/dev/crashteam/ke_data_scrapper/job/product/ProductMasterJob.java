@@ -1,13 +1,17 @@
 package dev.crashteam.ke_data_scrapper.job.product;
 
 import dev.crashteam.ke_data_scrapper.model.Constant;
-import dev.crashteam.ke_data_scrapper.service.ProductDataService;
+import dev.crashteam.ke_data_scrapper.model.ProductScheduler;
+import dev.crashteam.ke_data_scrapper.service.CategorySnapshotService;
+import dev.crashteam.ke_data_scrapper.service.ProductRunService;
 import dev.crashteam.ke_data_scrapper.service.SimpleTriggerJobCreatorService;
+import dev.crashteam.ke_data_scrapper.service.work.WorkQueueScheduler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -16,12 +20,24 @@ import org.springframework.stereotype.Service;
 public class ProductMasterJob implements Job {
 
     private final SimpleTriggerJobCreatorService creatorService;
-    private final ProductDataService productDataService;
+    private final ProductRunService productRunService;
+    private final CategorySnapshotService categorySnapshotService;
+    private final WorkQueueScheduler workQueueScheduler;
+
+    @Value("${app.job.product.scheduler}")
+    private ProductScheduler scheduler;
 
     @Override
     public void execute(JobExecutionContext jobExecutionContext) throws JobExecutionException {
-        productDataService.delete();
-        creatorService.createLightJob(Constant.PRODUCT_JOB_NAME, Constant.CATEGORY_ID_KEY, ProductJob.class);
+        String runId = String.valueOf(jobExecutionContext.getScheduledFireTime().getTime());
+        productRunService.startRun(runId);
+        categorySnapshotService.refresh();
+        if (scheduler == ProductScheduler.QUEUE) {
+            creatorService.evictRunCaches();
+            workQueueScheduler.schedule(runId);
+            return;
+        }
+        creatorService.createLightJob(Constant.PRODUCT_JOB_NAME, Constant.CATEGORY_ID_KEY, ProductJob.class, runId);
     }
 }
 
@@ -0,0 +1,553 @@
+package dev.crashteam.ke_data_scrapper.job.product;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import dev.crashteam.ke_data_scrapper.component.JobTaskExecutor;
+import dev.crashteam.ke_data_scrapper.mapper.KePositionToMessageMapper;
+import dev.crashteam.ke_data_scrapper.mapper.KeProductToMessageMapper;
+import dev.crashteam.ke_data_scrapper.mapper.ProductCorruptedException;
+import dev.crashteam.ke_data_scrapper.metric.gauge.PipelineQueueGauge;
+import dev.crashteam.ke_data_scrapper.model.CrawlMode;
+import dev.crashteam.ke_data_scrapper.model.cache.CachedProductData;
+import dev.crashteam.ke_data_scrapper.model.ke.KeGQLResponse;
+import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
+import dev.crashteam.ke_data_scrapper.model.stream.AwsStreamMessage;
+import dev.crashteam.ke_data_scrapper.service.JobUtilService;
+import dev.crashteam.ke_data_scrapper.service.ProductChangeService;
+import dev.crashteam.ke_data_scrapper.service.ProductDedupService;
+import dev.crashteam.ke_data_scrapper.service.position.PositionEngine;
+import dev.crashteam.ke_data_scrapper.service.position.PositionStateService;
+import dev.crashteam.ke_data_scrapper.service.stream.MessagePublisher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Crawls one category as a chain of stages connected by bounded queues:
+ * GQL pages -> product detail fetchers -> protobuf encoder -> Kinesis batcher.
+ * The next page is requested as soon as the current one is queued, so page fetching,
+ * product fetching and publishing overlap. In {@link CrawlMode#UNIFIED} mode the same traversal
+ * also emits category positions for the cards within the position offset, through the same
+ * {@link PositionStateService} delta as position jobs: only moved cards, plus a full snapshot per interval.
+ * Product detail is fetched only for claimed cards that {@link ProductChangeService} reports as changed.
+ * Once the entries of every card of a page and of all pages before it were accepted by Kinesis, the offset
+ * after that page is reported as completed, which is what checkpoints are taken from.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductPipeline {
+
+    private static final long PAGE_LIMIT = 100;
+
+    private static final CardTask CARD_POISON = new CardTask(null, false, 0, null);
+    private static final ProductTask PRODUCT_POISON = new ProductTask(null, null, null);
+    private static final EncodedCard ENCODED_POISON = new EncodedCard(List.of(), null, false);
+
+    private final JobUtilService jobUtilService;
+    private final ProductDedupService productDedupService;
+    private final ProductChangeService productChangeService;
+    private final KeProductToMessageMapper messageMapper;
+    private final KePositionToMessageMapper positionMapper;
+    private final MessagePublisher<AwsStreamMessage> kinesisMessagePublisher;
+    private final JobTaskExecutor jobTaskExecutor;
+    private final PipelineQueueGauge queueGauge;
+    private final PositionStateService positionStateService;
+
+    @Value("${app.aws-stream.ke-stream.name}")
+    private String streamName;
+
+    @Value("${app.job.product.pipeline.fetchers}")
+    private int fetchers;
+
+    @Value("${app.job.product.pipeline.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${app.job.product.pipeline.delivery-timeout}")
+    private Duration deliveryTimeout;
+
+    @Value("${app.job.crawl-mode}")
+    private CrawlMode crawlMode;
+
+    @Value("${app.stream.position.offset}")
+    private Integer maxPositionOffset;
+
+    /**
+     * @param resumed          {@code true} if an earlier attempt crawled the category in this run, its cards are
+     *                         published even if the run already claimed them, the earlier attempt may have
+     *                         claimed them without delivering
+     * @param completedOffsets receives the offset up to which all pages are delivered, whenever it moves
+     * @return {@code false} if page fetching stopped on an error or the queued pages were not delivered in time
+     */
+    public boolean run(String runId, Long categoryId, AtomicLong offset, AtomicLong totalItemProcessed,
+                       PageSource pageSource, BooleanSupplier running, boolean resumed, LongConsumer completedOffsets) {
+        return new Run(runId, categoryId, running, resumed, new PageTracker(offset.get(), completedOffsets))
+                .execute(offset, totalItemProcessed, pageSource);
+    }
+
+    @FunctionalInterface
+    public interface PageSource {
+        KeGQLResponse fetch(AtomicLong offset, long limit);
+    }
+
+    private record CardTask(KeGQLResponse.CatalogCard card, boolean fetch, long position, Page page) {
+    }
+
+    /**
+     * Cards of one page not yet delivered, plus one hold of the producer until the whole page is queued.
+     */
+    private static final class Page {
+
+        private final long offset;
+        private final PageTracker tracker;
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        private Page(long offset, PageTracker tracker) {
+            this.offset = offset;
+            this.tracker = tracker;
+        }
+
+        private void hold() {
+            pending.incrementAndGet();
+        }
+
+        private void done() {
+            if (pending.decrementAndGet() == 0) {
+                tracker.completed(offset);
+            }
+        }
+    }
+
+    private static final class PageTracker {
+
+        private final LongConsumer completedOffsets;
+        private final TreeSet<Long> completed = new TreeSet<>();
+        private long watermark;
+
+        private PageTracker(long startOffset, LongConsumer completedOffsets) {
+            this.watermark = startOffset;
+            this.completedOffsets = completedOffsets;
+        }
+
+        private synchronized void completed(long pageOffset) {
+            completed.add(pageOffset);
+            long previous = watermark;
+            while (completed.remove(watermark)) {
+                watermark += PAGE_LIMIT;
+            }
+            if (watermark != previous) {
+                notifyAll();
+                completedOffsets.accept(watermark);
+            }
+        }
+
+        private synchronized boolean await(long offset, long timeout) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeout;
+            while (watermark < offset) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    private record ProductTask(CardTask cardTask, KeProduct.ProductData productData, CachedProductData cachedProductData) {
+    }
+
+    private record EncodedCard(List<PutRecordsRequestEntry> entries, CardTask cardTask, boolean positioned) {
+    }
+
+    private final class Run {
+
+        private final String runId;
+        private final Long categoryId;
+        private final BooleanSupplier running;
+        private final boolean resumed;
+        private final PageTracker pageTracker;
+        private final BlockingQueue<CardTask> cardQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<ProductTask> productQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<EncodedCard> entryQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final List<Thread> stages = new ArrayList<>();
+        private volatile boolean stopped;
+        private long queuedOffset;
+        private boolean snapshot;
+
+        private Run(String runId, Long categoryId, BooleanSupplier running, boolean resumed, PageTracker pageTracker) {
+            this.runId = runId;
+            this.categoryId = categoryId;
+            this.running = running;
+            this.resumed = resumed;
+            this.pageTracker = pageTracker;
+            this.queuedOffset = pageTracker.watermark;
+        }
+
+        private boolean execute(AtomicLong offset, AtomicLong totalItemProcessed, PageSource pageSource) {
+            queueGauge.register("product_fetch", cardQueue);
+            queueGauge.register("product_encode", productQueue);
+            queueGauge.register("product_publish", entryQueue);
+            boolean completed;
+            try {
+                snapshot = crawlMode == CrawlMode.UNIFIED && positionStateService.isSnapshotDue(categoryId);
+                for (int i = 0; i < fetchers; i++) {
+                    stages.add(jobTaskExecutor.startThread("product-fetch-%s-%s".formatted(categoryId, i), this::fetchProducts));
+                }
+                stages.add(jobTaskExecutor.startThread("product-encode-%s".formatted(categoryId), this::encodeProducts));
+                stages.add(jobTaskExecutor.startThread("product-publish-%s".formatted(categoryId), this::publishEntries));
+                completed = producePages(offset, totalItemProcessed, pageSource);
+            } finally {
+                // an interrupted run stops fetching, the queued cards are drained without requests
+                stopped = Thread.currentThread().isInterrupted();
+                for (int i = 0; i < fetchers; i++) {
+                    putUninterruptibly(cardQueue, CARD_POISON);
+                }
+                awaitStages();
+                queueGauge.unregister("product_fetch", cardQueue);
+                queueGauge.unregister("product_encode", productQueue);
+                queueGauge.unregister("product_publish", entryQueue);
+            }
+            boolean delivered = completed && awaitDelivery();
+            if (delivered && snapshot && !stopped && running.getAsBoolean()) {
+                positionStateService.snapshotPublished(categoryId);
+            }
+            return delivered;
+        }
+
+        /**
+         * Waits until the entries of all queued pages were accepted by Kinesis, so a category is never
+         * marked done while its last entries are still in the batcher.
+         */
+        private boolean awaitDelivery() {
+            if (stopped || !running.getAsBoolean()) {
+                return true;
+            }
+            try {
+                if (pageTracker.await(queuedOffset, deliveryTimeout.toMillis())) {
+                    return true;
+                }
+                log.warn("Pages of category id - {} up to offset - {} were not delivered in {}",
+                        categoryId, queuedOffset, deliveryTimeout);
+            } catch (InterruptedException e) {
+                log.warn("Interrupted while waiting delivery of category id - {}", categoryId);
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        private boolean producePages(AtomicLong offset, AtomicLong totalItemProcessed, PageSource pageSource) {
+            while (running.getAsBoolean()) {
+                try {
+                    KeGQLResponse gqlResponse = pageSource.fetch(offset, PAGE_LIMIT);
+                    if (gqlResponse == null || !CollectionUtils.isEmpty(gqlResponse.getErrors())) {
+                        break;
+                    }
+                    jobUtilService.putCachedGraphData(gqlResponse, offset, categoryId, PAGE_LIMIT, runId);
+                    if (gqlResponse.getData().getMakeSearch().getTotal() <= totalItemProcessed.get()) {
+                        log.info("Total GQL response items - [{}] less or equal than total processed items - [{}] of category - [{}], " +
+                                "skipping further parsing... ", gqlResponse.getData().getMakeSearch().getTotal(), totalItemProcessed.get(), categoryId);
+                        break;
+                    }
+                    var productItems = Optional.ofNullable(gqlResponse.getData()
+                                    .getMakeSearch())
+                            .map(KeGQLResponse.MakeSearch::getItems)
+                            .filter(it -> !CollectionUtils.isEmpty(it))
+                            .orElse(Collections.emptyList());
+                    if (CollectionUtils.isEmpty(productItems)) {
+                        log.warn("Skipping all product job gql requests for categoryId - {} with offset - {}, cause items are empty", categoryId, offset);
+                        offset.addAndGet(PAGE_LIMIT);
+                        break;
+                    }
+                    log.info("Iterate through products for itemsCount={};categoryId={}", productItems.size(), categoryId);
+                    List<KeGQLResponse.CatalogCard> cards = productItems.stream()
+                            .map(KeGQLResponse.CatalogCardWrapper::getCatalogCard)
+                            .filter(Objects::nonNull)
+                            .toList();
+                    Set<Long> claimed = productDedupService.claim(runId, cards.stream()
+                            .map(KeGQLResponse.CatalogCard::getProductId)
+                            .toList());
+                    if (resumed) {
+                        cards.stream().map(KeGQLResponse.CatalogCard::getProductId)
+                                .filter(Objects::nonNull)
+                                .forEach(claimed::add);
+                    }
+                    Set<Long> changed = productChangeService.changed(runId, cards.stream()
+                            .filter(card -> claimed.contains(card.getProductId()))
+                            .toList());
+                    boolean positions = crawlMode == CrawlMode.UNIFIED && offset.get() < maxPositionOffset;
+                    Set<Long> moved = positions ? movedCards(offset.get(), productItems) : Set.of();
+                    Page page = new Page(offset.get(), pageTracker);
+                    for (int index = 0; index < productItems.size(); index++) {
+                        if (!running.getAsBoolean()) break;
+                        KeGQLResponse.CatalogCard catalogCard = productItems.get(index).getCatalogCard();
+                        if (catalogCard == null || catalogCard.getProductId() == null) continue;
+                        boolean fetch = claimed.remove(catalogCard.getProductId()) && changed.contains(catalogCard.getProductId());
+                        boolean positioned = moved.contains(catalogCard.getProductId());
+                        if (fetch || positioned) {
+                            long position = positioned ? PositionEngine.positionOf(offset.get(), index) : 0;
+                            page.hold();
+                            cardQueue.put(new CardTask(catalogCard, fetch, position, page));
+                        }
+                    }
+                    if (!running.getAsBoolean()) break;
+                    page.done();
+                    queuedOffset = offset.get() + PAGE_LIMIT;
+                    offset.addAndGet(PAGE_LIMIT);
+                    totalItemProcessed.addAndGet(productItems.size());
+                } catch (InterruptedException e) {
+                    log.warn("Product pipeline for category id - {} interrupted on offset - {}", categoryId, offset.get());
+                    Thread.currentThread().interrupt();
+                    return false;
+                } catch (Exception e) {
+                    log.error("Gql search for catalog with id [{}] finished with exception - [{}] on offset - {}",
+                            categoryId, Optional.ofNullable(e.getCause()).map(Throwable::getMessage).orElse(e.getMessage()),
+                            offset.get(), e);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return ids of the page cards whose position has to be published, all of them in a snapshot run
+         */
+        private Set<Long> movedCards(long pageOffset, List<KeGQLResponse.CatalogCardWrapper> productItems) {
+            Map<Long, Long> positions = new LinkedHashMap<>();
+            for (int index = 0; index < productItems.size(); index++) {
+                KeGQLResponse.CatalogCard catalogCard = productItems.get(index).getCatalogCard();
+                if (catalogCard != null && catalogCard.getProductId() != null) {
+                    positions.putIfAbsent(catalogCard.getProductId(), PositionEngine.positionOf(pageOffset, index));
+                }
+            }
+            return snapshot ? positions.keySet() : positionStateService.changed(categoryId, positions);
+        }
+
+        private void fetchProducts() {
+            try {
+                while (true) {
+                    CardTask cardTask = cardQueue.take();
+                    if (cardTask == CARD_POISON) {
+                        productQueue.put(PRODUCT_POISON);
+                        return;
+                    }
+                    if (stopped || !running.getAsBoolean()) continue;
+                    if (cardTask.fetch()) {
+                        KeProduct.ProductData productData = jobTaskExecutor.callBounded(() -> fetchProduct(cardTask.card()));
+                        if (productData != null) {
+                            productQueue.put(new ProductTask(cardTask, productData, null));
+                            continue;
+                        }
+                    } else {
+                        CachedProductData cachedProductData = cachedProduct(cardTask.card());
+                        if (cachedProductData != null) {
+                            productQueue.put(new ProductTask(cardTask, null, cachedProductData));
+                            continue;
+                        }
+                    }
+                    cardTask.page().done();
+                }
+            } catch (InterruptedException e) {
+                log.warn("Product fetch stage for category id - {} interrupted", categoryId);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void encodeProducts() {
+            try {
+                int finishedFetchers = 0;
+                while (finishedFetchers < fetchers) {
+                    ProductTask productTask = productQueue.take();
+                    if (productTask == PRODUCT_POISON) {
+                        finishedFetchers++;
+                        continue;
+                    }
+                    List<PutRecordsRequestEntry> entries = new ArrayList<>();
+                    KeProduct.ProductData productData = productTask.productData();
+                    if (productData != null) {
+                        PutRecordsRequestEntry entry = toAwsEntry(productData);
+                        if (entry != null) {
+                            entries.add(entry);
+                        }
+                    }
+                    List<PutRecordsRequestEntry> positionEntries = productTask.cardTask().position() > 0
+                            ? toPositionEntries(productTask) : List.of();
+                    entries.addAll(positionEntries);
+                    if (entries.isEmpty()) {
+                        productTask.cardTask().page().done();
+                    } else {
+                        entryQueue.put(new EncodedCard(entries, productTask.cardTask(), !positionEntries.isEmpty()));
+                    }
+                }
+                entryQueue.put(ENCODED_POISON);
+            } catch (InterruptedException e) {
+                log.warn("Product encode stage for category id - {} interrupted", categoryId);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void publishEntries() {
+            try {
+                while (true) {
+                    List<EncodedCard> cards = new ArrayList<>();
+                    cards.add(entryQueue.take());
+                    entryQueue.drainTo(cards);
+                    boolean last = cards.removeIf(it -> it == ENCODED_POISON);
+                    publish(cards);
+                    if (last) return;
+                }
+            } catch (InterruptedException e) {
+                log.warn("Product publish stage for category id - {} interrupted", categoryId);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private KeProduct.ProductData fetchProduct(KeGQLResponse.CatalogCard catalogCard) {
+            Long itemId = catalogCard.getProductId();
+            try {
+                KeProduct.ProductData productData = jobUtilService.getProductData(itemId);
+                if (productData == null) {
+                    log.warn("Product data with id - {} returned null, continue with next item, if it exists...", itemId);
+                    return null;
+                }
+                jobUtilService.putCachedProductData(productData, itemId);
+                productChangeService.fetched(runId, catalogCard);
+                return productData;
+            } catch (Exception e) {
+                log.error("Error while fetching product with id - {} for categoryId - {}", itemId, categoryId, e);
+            }
+            return null;
+        }
+
+        private CachedProductData cachedProduct(KeGQLResponse.CatalogCard catalogCard) {
+            try {
+                return jobUtilService.getCachedProductData(catalogCard.getProductId());
+            } catch (Exception e) {
+                log.error("Error while getting cached product with id - {} for categoryId - {}",
+                        catalogCard.getProductId(), categoryId, e);
+            }
+            return null;
+        }
+
+        private List<PutRecordsRequestEntry> toPositionEntries(ProductTask productTask) {
+            KeGQLResponse.CatalogCard catalogCard = productTask.cardTask().card();
+            Long characteristicId = CollectionUtils.isEmpty(catalogCard.getCharacteristicValues())
+                    ? null : catalogCard.getCharacteristicValues().get(0).getId();
+            try {
+                if (productTask.productData() != null) {
+                    return positionMapper.mapToEntries(productTask.cardTask().position(), catalogCard.getProductId(), categoryId,
+                            characteristicId, productTask.productData().getCharacteristics(), productTask.productData().getSkuList());
+                }
+                return positionMapper.mapToEntries(productTask.cardTask().position(), catalogCard.getProductId(), categoryId,
+                        characteristicId, productTask.cachedProductData().getCharacteristics(), productTask.cachedProductData().getSkuList());
+            } catch (Exception e) {
+                log.error("Error while mapping positions of product with id - {} for categoryId - {}",
+                        catalogCard.getProductId(), categoryId, e);
+            }
+            return List.of();
+        }
+
+        private PutRecordsRequestEntry toAwsEntry(KeProduct.ProductData productData) {
+            try {
+                PutRecordsRequestEntry requestEntry = messageMapper.toEntry(productData, Instant.now());
+                log.info("PRODUCT JOB - filling AWS entries for categoryId - [{}] productId - [{}]",
+                        productData.getCategory().getId(), productData.getId());
+                return requestEntry;
+            } catch (ProductCorruptedException ex) {
+                log.warn("Product with id - {} is corrupted", productData.getId());
+                return null;
+            } catch (Exception ex) {
+                log.error("Unexpected exception during publish AWS stream message", ex);
+            }
+            log.warn("AWS message for categoryId - [{}] productId - [{}] is null",
+                    categoryId, productData.getId());
+            return null;
+        }
+
+        /**
+         * Pages of the cards complete and their positions are stored once Kinesis accepted all entries,
+         * never if one of them was dropped.
+         */
+        private void publish(List<EncodedCard> cards) {
+            if (cards.isEmpty()) return;
+            List<PutRecordsRequestEntry> entries = cards.stream()
+                    .flatMap(card -> card.entries().stream())
+                    .toList();
+            try {
+                Object queued = kinesisMessagePublisher.publish(new AwsStreamMessage(streamName, entries,
+                        () -> delivered(cards)));
+                log.info("PRODUCT JOB : Queued [{}] records to AWS stream - [{}] for categoryId - [{}]",
+                        queued, streamName, categoryId);
+            } catch (Exception e) {
+                log.error("PRODUCT JOB : AWS ERROR, couldn't publish to stream - [{}] for category - [{}]", streamName, categoryId, e);
+            }
+        }
+
+        private void delivered(List<EncodedCard> cards) {
+            Map<Long, Long> positions = new HashMap<>();
+            for (EncodedCard card : cards) {
+                card.cardTask().page().done();
+                if (card.positioned()) {
+                    positions.put(card.cardTask().card().getProductId(), card.cardTask().position());
+                }
+            }
+            positionStateService.delivered(categoryId, positions);
+        }
+
+        /**
+         * Joins the stages uninterruptibly, they drain on the poison pills, so none of them outlives the run.
+         */
+        private void awaitStages() {
+            boolean interrupted = false;
+            for (Thread stage : stages) {
+                while (true) {
+                    try {
+                        stage.join();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                log.warn("Interrupted while waiting product pipeline stages for category id - {}", categoryId);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private <T> void putUninterruptibly(BlockingQueue<T> queue, T item) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    queue.put(item);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
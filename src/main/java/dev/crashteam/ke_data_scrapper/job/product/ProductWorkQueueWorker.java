@@ -0,0 +1,215 @@
+package dev.crashteam.ke_data_scrapper.job.product;
+
+import dev.crashteam.ke_data_scrapper.component.JobTaskExecutor;
+import dev.crashteam.ke_data_scrapper.model.ProductScheduler;
+import dev.crashteam.ke_data_scrapper.model.ke.KeGQLResponse;
+import dev.crashteam.ke_data_scrapper.model.work.WorkUnit;
+import dev.crashteam.ke_data_scrapper.service.JobUtilService;
+import dev.crashteam.ke_data_scrapper.service.MetricService;
+import dev.crashteam.ke_data_scrapper.service.ProductCheckpointService;
+import dev.crashteam.ke_data_scrapper.service.ProductRunService;
+import dev.crashteam.ke_data_scrapper.service.work.CategoryStatsService;
+import dev.crashteam.ke_data_scrapper.service.work.RunProgressService;
+import dev.crashteam.ke_data_scrapper.service.work.WorkLeaseCoordinator;
+import dev.crashteam.ke_data_scrapper.service.work.WorkPlanner;
+import dev.crashteam.ke_data_scrapper.service.work.WorkQueue;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Leases work units of the current product run from the cluster-wide queue and crawls them with
+ * {@link ProductPipeline}. Every node runs the same number of workers, so idle nodes keep taking
+ * the highest priority units left instead of waiting for a whole root category. A unit whose lease
+ * was lost is abandoned, a unit interrupted by shutdown goes back to the queue from the offset up to
+ * which its pages were delivered.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductWorkQueueWorker {
+
+    private static final String JOB_TYPE = "PRODUCT_JOB";
+    private static final long SHUTDOWN_TIMEOUT = 30000;
+
+    private final WorkQueue workQueue;
+    private final WorkLeaseCoordinator leaseCoordinator;
+    private final WorkPlanner workPlanner;
+    private final CategoryStatsService categoryStatsService;
+    private final RunProgressService runProgressService;
+    private final ProductRunService productRunService;
+    private final ProductPipeline productPipeline;
+    private final JobUtilService jobUtilService;
+    private final ProductCheckpointService checkpointService;
+    private final MetricService metricService;
+    private final JobTaskExecutor jobTaskExecutor;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running;
+    private volatile String currentRunId;
+
+    @Value("${app.job.product.scheduler}")
+    private ProductScheduler scheduler;
+
+    @Value("${app.job.product.work.workers}")
+    private int workerCount;
+
+    @Value("${app.job.product.work.poll-interval}")
+    private long pollInterval;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (scheduler != ProductScheduler.QUEUE) return;
+        running = true;
+        refreshRun();
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(jobTaskExecutor.startThread("product-worker-%s".formatted(i), this::work));
+        }
+        log.info("Started {} product work queue workers", workerCount);
+    }
+
+    @Scheduled(fixedDelayString = "${app.job.product.work.poll-interval}")
+    public void refreshRun() {
+        if (scheduler != ProductScheduler.QUEUE) return;
+        try {
+            currentRunId = productRunService.getCurrentRunId();
+        } catch (Exception e) {
+            log.warn("Failed to refresh current product run", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(SHUTDOWN_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker.interrupt();
+        }
+    }
+
+    private void work() {
+        while (running) {
+            WorkLeaseCoordinator.Lease lease = null;
+            try {
+                String runId = currentRunId;
+                lease = runId != null ? leaseCoordinator.acquire(runId) : null;
+                if (lease != null) {
+                    execute(lease);
+                    continue;
+                }
+            } catch (Exception e) {
+                log.error("Product work unit - {} failed", lease != null ? lease.getUnit() : null, e);
+                metricService.incrementErrorJob(JOB_TYPE);
+                if (lease != null) {
+                    leaseCoordinator.complete(lease);
+                }
+            }
+            try {
+                Thread.sleep(pollInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void execute(WorkLeaseCoordinator.Lease lease) {
+        WorkUnit unit = lease.getUnit();
+        Instant start = Instant.now();
+        String scope = unit.encode();
+        ProductCheckpointService.Checkpoint checkpoint = checkpointService.load(unit.runId(), scope);
+        long startOffset = checkpoint != null ? Math.max(checkpoint.offset(), unit.startOffset()) : unit.startOffset();
+        // a unit with a checkpoint was crawled before, its cards may be claimed without being delivered
+        boolean resumed = checkpoint != null;
+        checkpointService.save(unit.runId(), scope, new ProductCheckpointService.Checkpoint(unit.categoryId(), startOffset, Set.of()));
+        log.info("Starting product work unit for category id - {}, offsets [{}, {}) from offset - {}",
+                unit.categoryId(), unit.startOffset(), unit.endOffset(), startOffset);
+        AtomicLong offset = new AtomicLong(startOffset);
+        AtomicLong totalItemProcessed = new AtomicLong(startOffset);
+        // offset up to which all pages are delivered, the cards queued past it are not crawled yet
+        AtomicLong completedOffset = new AtomicLong(startOffset);
+        LongConsumer tracker = checkpointService.tracker(unit.runId(), scope, unit.categoryId(), Set.of());
+        // a checkpointed head was already split after its first page
+        AtomicLong endOffset = new AtomicLong(unit.isHead() && startOffset > 0 ? workPlanner.getUnitSize() : unit.endOffset());
+        boolean completed = productPipeline.run(unit.runId(), unit.categoryId(), offset, totalItemProcessed,
+                (pageOffset, limit) -> {
+                    if (pageOffset.get() >= endOffset.get()) {
+                        return null;
+                    }
+                    KeGQLResponse response = jobUtilService.getResponse(pageOffset, unit.categoryId(), limit);
+                    if (unit.isHead() && pageOffset.get() == 0) {
+                        total(response).ifPresent(total -> splitHead(unit, total, endOffset));
+                    }
+                    return response;
+                },
+                () -> running && !lease.isLost() && unit.runId().equals(currentRunId), resumed,
+                completed -> {
+                    completedOffset.set(completed);
+                    tracker.accept(completed);
+                });
+        long processed = totalItemProcessed.get() - startOffset;
+        if (!running && !lease.isLost()) {
+            WorkUnit released = new WorkUnit(unit.runId(), unit.categoryId(), completedOffset.get(), endOffset.get(), unit.priority());
+            checkpointService.save(unit.runId(), released.encode(),
+                    new ProductCheckpointService.Checkpoint(unit.categoryId(), released.startOffset(), Set.of()));
+            leaseCoordinator.release(lease, released);
+            log.info("Released product work unit for category id - {} on offset - {}", unit.categoryId(), released.startOffset());
+            runProgressService.addProcessed(unit.runId(), processed);
+            return;
+        }
+        leaseCoordinator.complete(lease);
+        if (!lease.isLost()) {
+            checkpointService.clear(unit.runId(), scope);
+        }
+        if (!completed) {
+            metricService.incrementErrorJob(JOB_TYPE);
+        }
+        metricService.incrementFinishJob(JOB_TYPE);
+        log.debug("Product work unit - Finished collecting for category id - {}, total items processed - {} in {} seconds",
+                unit.categoryId(), processed, Duration.between(start, Instant.now()).toSeconds());
+        runProgressService.addProcessed(unit.runId(), processed);
+    }
+
+    private void splitHead(WorkUnit head, long total, AtomicLong endOffset) {
+        long previousTotal = Optional.ofNullable(categoryStatsService.get(List.of(head.categoryId())).get(head.categoryId()))
+                .map(CategoryStatsService.CategoryStats::total)
+                .orElse(0L);
+        categoryStatsService.record(head.categoryId(), total);
+        runProgressService.addPlanned(head.runId(), total - previousTotal);
+        List<WorkUnit> units = workPlanner.split(head, total);
+        // a head taken over before its first checkpoint comes here again, possibly with another total
+        if (!workQueue.enqueueSplit(head.runId(), head, units)) {
+            endOffset.set(workPlanner.getUnitSize());
+            log.info("Category id - {} was split before, keeping the head to its first work unit", head.categoryId());
+        } else if (!units.isEmpty()) {
+            endOffset.set(workPlanner.getUnitSize());
+            log.info("Split category id - {} with {} items into {} more work units", head.categoryId(), total, units.size());
+        }
+    }
+
+    private static Optional<Long> total(KeGQLResponse response) {
+        if (response == null || !CollectionUtils.isEmpty(response.getErrors()) || response.getData() == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(response.getData().getMakeSearch()).map(KeGQLResponse.MakeSearch::getTotal);
+    }
+}
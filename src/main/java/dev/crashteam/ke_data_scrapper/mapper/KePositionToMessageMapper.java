@@ -0,0 +1,90 @@
+package dev.crashteam.ke_data_scrapper.mapper;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import dev.crashteam.ke.scrapper.data.v1.KeScrapperEvent;
+import dev.crashteam.ke_data_scrapper.aws.KinesisEventEncoder;
+import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Service
+public class KePositionToMessageMapper {
+
+    public List<PutRecordsRequestEntry> mapToEntries(long position, Long productId, Long categoryId, Long characteristicId,
+                                                     List<KeProduct.CharacteristicsData> characteristics,
+                                                     List<KeProduct.SkuData> skuList) {
+        List<Long> skuIds = availableSkuIds(productId, characteristicId, characteristics, skuList);
+        List<PutRecordsRequestEntry> entries = new ArrayList<>(skuIds.size());
+        Instant scrapTime = Instant.now();
+        for (Long skuId : skuIds) {
+            PutRecordsRequestEntry awsMessage = mapToEntry(position, productId, skuId, categoryId, scrapTime);
+            if (awsMessage != null) {
+                entries.add(awsMessage);
+            }
+        }
+        return entries;
+    }
+
+    private List<Long> availableSkuIds(Long productId, Long characteristicId,
+                                       List<KeProduct.CharacteristicsData> characteristics,
+                                       List<KeProduct.SkuData> skuList) {
+        if (characteristicId == null) {
+            return skuList.stream()
+                    .filter(sku -> sku.getAvailableAmount() > 0)
+                    .map(KeProduct.SkuData::getId)
+                    .toList();
+        }
+        Integer indexOfCharacteristic = null;
+        CHARACTERISTICS:
+        for (KeProduct.CharacteristicsData productCharacteristic : characteristics) {
+            List<KeProduct.Characteristic> characteristicValues = productCharacteristic.getValues();
+            if (CollectionUtils.isEmpty(characteristicValues)) continue;
+            for (int index = 0; index < characteristicValues.size(); index++) {
+                KeProduct.Characteristic characteristic = characteristicValues.get(index);
+                if (characteristic != null && characteristic.getId().equals(characteristicId)) {
+                    indexOfCharacteristic = index;
+                    break CHARACTERISTICS;
+                }
+            }
+        }
+        if (indexOfCharacteristic == null) {
+            log.warn("Something goes wrong. Can't find index of characteristic." +
+                    " productId={}; characteristicId={}", productId, characteristicId);
+            return List.of();
+        }
+        Integer finalIndexOfCharacteristic = indexOfCharacteristic;
+        return skuList.stream()
+                .filter(productSku -> {
+                    if (!CollectionUtils.isEmpty(productSku.getCharacteristics())) {
+                        boolean anyMatch = productSku.getCharacteristics().stream()
+                                .anyMatch(it -> finalIndexOfCharacteristic.equals(it.getValueIndex()));
+                        return anyMatch && productSku.getAvailableAmount() > 0;
+                    }
+                    return false;
+                }).map(KeProduct.SkuData::getId).toList();
+    }
+
+    private PutRecordsRequestEntry mapToEntry(long position, Long productId, Long skuId, Long categoryId, Instant scrapTime) {
+        try {
+            KeScrapperEvent.Builder event = KinesisEventEncoder.newEvent(scrapTime);
+            event.getEventPayloadBuilder().getKeProductPositionChangeBuilder()
+                    .setPosition(position)
+                    .setProductId(productId)
+                    .setSkuId(skuId)
+                    .setCategoryId(categoryId);
+            PutRecordsRequestEntry requestEntry = KinesisEventEncoder.toEntry(event, productId.toString());
+            log.info("POSITION JOB - filling AWS entries for categoryId - [{}] productId - [{}]",
+                    categoryId, productId);
+            return requestEntry;
+        } catch (Exception ex) {
+            log.error("Unexpected exception during publish AWS stream message returning NULL", ex);
+        }
+        return null;
+    }
+}
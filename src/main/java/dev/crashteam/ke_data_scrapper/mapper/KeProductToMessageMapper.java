@@ -1,18 +1,17 @@
 package dev.crashteam.ke_data_scrapper.mapper;
 
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
 import com.google.protobuf.Timestamp;
 import dev.crashteam.ke.scrapper.data.v1.KeProductChange;
-import dev.crashteam.ke.scrapper.data.v1.KeSkuCharacteristic;
-import dev.crashteam.ke.scrapper.data.v1.KeValue;
+import dev.crashteam.ke.scrapper.data.v1.KeScrapperEvent;
+import dev.crashteam.ke_data_scrapper.aws.KinesisEventEncoder;
 import dev.crashteam.ke_data_scrapper.model.dto.KeProductMessage;
 import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
-import lombok.val;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 
@@ -20,75 +19,65 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class KeProductToMessageMapper {
 
     public KeProductChange mapToMessage(KeProduct.ProductData productData) {
-        List<KeProductChange.KeProductCharacteristic> characteristicsData = new ArrayList<>();
+        KeProductChange.Builder builder = KeProductChange.newBuilder();
+        fill(builder, productData);
+        return builder.build();
+    }
+
+    /**
+     * Validates, maps and encodes the product as a scrapper event entry in one pass.
+     *
+     * @throws ProductCorruptedException if a SKU has no photo
+     */
+    public PutRecordsRequestEntry toEntry(KeProduct.ProductData productData, Instant scrapTime) {
+        KeScrapperEvent.Builder event = KinesisEventEncoder.newEvent(scrapTime);
+        fill(event.getEventPayloadBuilder().getKeProductChangeBuilder(), productData);
+        return KinesisEventEncoder.toEntry(event, productData.getId().toString());
+    }
+
+    private void fill(KeProductChange.Builder builder, KeProduct.ProductData productData) {
+        ProductLookup lookup = new ProductLookup(productData);
+        // SKUs go first, so a corrupted product is rejected before the rest is mapped
+        for (KeProduct.SkuData sku : productData.getSkuList()) {
+            KeProductChange.KeProductSku.Builder skuBuilder = builder.addSkusBuilder()
+                    .setSkuId(sku.getId().toString())
+                    .setAvailableAmount(sku.getAvailableAmount())
+                    .setPurchasePrice(sku.getPurchasePrice());
+            for (KeProduct.ScuCharacteristic skuCharacteristic : sku.getCharacteristics()) {
+                KeProduct.Characteristic characteristicValue = lookup.value(skuCharacteristic);
+                skuBuilder.addCharacteristicsBuilder()
+                        .setType(lookup.characteristic(skuCharacteristic).getTitle())
+                        .setTitle(characteristicValue.getTitle())
+                        .setValue(characteristicValue.getValue());
+            }
+            KeProduct.ProductPhoto productPhoto = lookup.photo(sku);
+            if (productPhoto == null) {
+                throw new ProductCorruptedException("Corrupted item. productId=%s".formatted(productData.getId()));
+            }
+            skuBuilder.setPhotoKey(productPhoto.getPhotoKey());
+            KeProduct.Restriction skuRestriction = sku.getRestriction();
+            if (skuRestriction != null && skuRestriction.getRestrictedAmount() != null
+                    && skuRestriction.getRestrictedAmount() > 0) {
+                skuBuilder.getRestrictionBuilder()
+                        .setBoughtAmount(skuRestriction.getBoughtAmount())
+                        .setRestrictedAmount(skuRestriction.getRestrictedAmount());
+            }
+            if (sku.getFullPrice() != null) {
+                skuBuilder.setFullPrice(sku.getFullPrice());
+            }
+        }
         for (KeProduct.CharacteristicsData characteristic : productData.getCharacteristics()) {
-            List<KeValue> characteristicsValues = new ArrayList<>();
+            KeProductChange.KeProductCharacteristic.Builder characteristicBuilder = builder.addCharacteristicsBuilder()
+                    .setId(characteristic.getId())
+                    .setTitle(characteristic.getTitle());
             for (KeProduct.Characteristic characteristicValue : characteristic.getValues()) {
-                var keValue = KeValue.newBuilder()
+                characteristicBuilder.addValuesBuilder()
                         .setValue(characteristicValue.getValue())
                         .setTitle(characteristicValue.getTitle())
-                        .setId(characteristicValue.getId().toString())
-                        .build();
-                characteristicsValues.add(keValue);
+                        .setId(characteristicValue.getId().toString());
             }
-            var productCharacteristic = KeProductChange.KeProductCharacteristic.newBuilder()
-                    .setId(characteristic.getId())
-                    .setTitle(characteristic.getTitle())
-                    .addAllValues(characteristicsValues)
-                    .build();
-            characteristicsData.add(productCharacteristic);
         }
-        AtomicBoolean isCorrupted = new AtomicBoolean(false);
-        List<KeProductChange.KeProductSku> skuList = productData.getSkuList()
-                .stream()
-                .map(sku -> {
-                    List<KeSkuCharacteristic> characteristics = sku.getCharacteristics()
-                            .stream()
-                            .map(it -> {
-                                var productCharacteristic = productData
-                                        .getCharacteristics().get(it.getCharIndex());
-                                var characteristicValue = productCharacteristic
-                                        .getValues().get(it.getValueIndex());
-                                return KeSkuCharacteristic.newBuilder()
-                                        .setType(productCharacteristic.getTitle())
-                                        .setTitle(characteristicValue.getTitle())
-                                        .setValue(characteristicValue.getValue()).build();
-                            }).toList();
-                    KeProduct.ProductPhoto productPhoto = extractProductPhoto(productData, sku);
-                    if (productPhoto == null) {
-                        isCorrupted.set(true);
-                    }
-                    KeProductChange.Restriction restriction;
-                    KeProduct.Restriction skuRestriction = sku.getRestriction();
-                    val keProductBuilder = KeProductChange.KeProductSku.newBuilder()
-                            .setSkuId(sku.getId().toString())
-                            .setAvailableAmount(sku.getAvailableAmount())
-                            .setPurchasePrice(sku.getPurchasePrice())
-                            .addAllCharacteristics(characteristics);
-                    if (productPhoto != null) {
-                        keProductBuilder.setPhotoKey(productPhoto.getPhotoKey());
-                    }
-                    if (skuRestriction != null && skuRestriction.getRestrictedAmount() != null
-                            && skuRestriction.getRestrictedAmount() > 0) {
-                        restriction = KeProductChange.Restriction
-                                .newBuilder()
-                                .setBoughtAmount(skuRestriction.getBoughtAmount())
-                                .setRestrictedAmount(skuRestriction.getRestrictedAmount())
-                                .build();
-                        keProductBuilder.setRestriction(restriction);
-                    }
-
-                    if (sku.getFullPrice() != null) {
-                        keProductBuilder.setFullPrice(sku.getFullPrice());
-                    }
-                    return keProductBuilder.build();
-                }).toList();
-        if (isCorrupted.get()) {
-            throw new ProductCorruptedException("Corrupted item. productId=%s".formatted(productData.getId()));
-        }
-
-        KeProductChange.Builder builder = KeProductChange.newBuilder()
-                .setRating(Double.parseDouble(productData.getRating()))
+        builder.setRating(Double.parseDouble(productData.getRating()))
                 .setCategory(mapCategory(productData.getCategory()))
                 .setOrders(productData.getOrdersAmount())
                 .setProductId(productData.getId().toString())
@@ -98,34 +87,11 @@ public class KeProductToMessageMapper {
                 .setTitle(productData.getTitle())
                 .setTotalAvailableAmount(productData.getTotalAvailableAmount())
                 .setSeller(mapSeller(productData))
-                .addAllSkus(skuList)
-                .addAllCharacteristics(characteristicsData)
                 .setIsEco(productData.isEco())
                 .setIsAdult(productData.isAdultCategory());
         if (productData.getDescription() != null) {
             builder.setDescription(productData.getDescription());
         }
-        return builder.build();
-    }
-
-    private KeProduct.ProductPhoto extractProductPhoto(KeProduct.ProductData product, KeProduct.SkuData sku) {
-        return sku.getCharacteristics().stream()
-                .map(it -> {
-                    var productCharacteristic = product
-                            .getCharacteristics().get(it.getCharIndex());
-                    var characteristicValue = productCharacteristic
-                            .getValues().get(it.getValueIndex());
-                    var value = characteristicValue.getValue();
-                    return product.getPhotos().stream()
-                            .filter(photo -> photo.getColor() != null)
-                            .filter(photo -> photo.getColor().equals(value))
-                            .findFirst()
-                            .orElse(null);
-                })
-                .filter(Objects::nonNull)
-                .findFirst()
-                .orElse(product.getPhotos()
-                        .stream().findFirst().orElse(null));
     }
 
     private KeProductChange.KeProductCategory mapCategory(KeProduct.ProductCategory productCategory) {
@@ -184,38 +150,20 @@ public class KeProductToMessageMapper {
             characteristicsData.add(messageCharacteristic);
         }
         AtomicBoolean isCorrupted = new AtomicBoolean(false);
+        ProductLookup lookup = new ProductLookup(productData);
         List<KeProductMessage.KeItemSku> skuList = productData.getSkuList()
                 .stream()
                 .map(sku -> {
                     List<KeProductMessage.KeItemCharacteristic> characteristics = sku.getCharacteristics()
                             .stream()
                             .map(it -> {
-                                var productCharacteristic = productData
-                                        .getCharacteristics().get(it.getCharIndex());
-                                var characteristicValue = productCharacteristic
-                                        .getValues().get(it.getValueIndex());
+                                var characteristicValue = lookup.value(it);
                                 return KeProductMessage.KeItemCharacteristic.builder()
-                                        .type(productCharacteristic.getTitle())
+                                        .type(lookup.characteristic(it).getTitle())
                                         .title(characteristicValue.getTitle())
                                         .value(characteristicValue.getValue()).build();
                             }).toList();
-                    KeProduct.ProductPhoto productPhoto = sku.getCharacteristics().stream()
-                            .map(it -> {
-                                var productCharacteristic = productData
-                                        .getCharacteristics().get(it.getCharIndex());
-                                var characteristicValue = productCharacteristic
-                                        .getValues().get(it.getValueIndex());
-                                var value = characteristicValue.getValue();
-                                return productData.getPhotos().stream()
-                                        .filter(photo -> photo.getColor() != null)
-                                        .filter(photo -> photo.getColor().equals(value))
-                                        .findFirst()
-                                        .orElse(null);
-                            })
-                            .filter(Objects::nonNull)
-                            .findFirst()
-                            .orElse(productData.getPhotos()
-                                    .stream().findFirst().orElse(null));
+                    KeProduct.ProductPhoto productPhoto = lookup.photo(sku);
                     if (productPhoto == null) {
                         isCorrupted.set(true);
                     }
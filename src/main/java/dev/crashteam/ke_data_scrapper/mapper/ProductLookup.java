@@ -0,0 +1,58 @@
+package dev.crashteam.ke_data_scrapper.mapper;
+
+import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup tables of a single product, built once so every SKU is resolved in constant time:
+ * color to its first photo and (characteristic index, value index) to the characteristic value.
+ */
+final class ProductLookup {
+
+    private final KeProduct.CharacteristicsData[] characteristics;
+    private final KeProduct.Characteristic[][] values;
+    private final Map<String, KeProduct.ProductPhoto> photoByColor;
+    private final KeProduct.ProductPhoto firstPhoto;
+
+    ProductLookup(KeProduct.ProductData productData) {
+        List<KeProduct.CharacteristicsData> productCharacteristics = productData.getCharacteristics();
+        characteristics = productCharacteristics.toArray(new KeProduct.CharacteristicsData[0]);
+        values = new KeProduct.Characteristic[characteristics.length][];
+        for (int i = 0; i < characteristics.length; i++) {
+            values[i] = characteristics[i].getValues().toArray(new KeProduct.Characteristic[0]);
+        }
+        List<KeProduct.ProductPhoto> photos = productData.getPhotos();
+        photoByColor = new HashMap<>(Math.max(16, photos.size() * 2));
+        for (KeProduct.ProductPhoto photo : photos) {
+            if (photo.getColor() != null) {
+                photoByColor.putIfAbsent(photo.getColor(), photo);
+            }
+        }
+        firstPhoto = photos.isEmpty() ? null : photos.get(0);
+    }
+
+    KeProduct.CharacteristicsData characteristic(KeProduct.ScuCharacteristic skuCharacteristic) {
+        return characteristics[skuCharacteristic.getCharIndex()];
+    }
+
+    KeProduct.Characteristic value(KeProduct.ScuCharacteristic skuCharacteristic) {
+        return values[skuCharacteristic.getCharIndex()][skuCharacteristic.getValueIndex()];
+    }
+
+    /**
+     * @return photo of the first SKU characteristic value with one, the first product photo otherwise
+     */
+    KeProduct.ProductPhoto photo(KeProduct.SkuData sku) {
+        for (KeProduct.ScuCharacteristic skuCharacteristic : sku.getCharacteristics()) {
+            String color = value(skuCharacteristic).getValue();
+            KeProduct.ProductPhoto photo = color != null ? photoByColor.get(color) : null;
+            if (photo != null) {
+                return photo;
+            }
+        }
+        return firstPhoto;
+    }
+}
@@ -0,0 +1,17 @@
+package dev.crashteam.ke_data_scrapper.metric.counter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CacheEvictionCounter extends BasicCounter {
+
+    public CacheEvictionCounter(MeterRegistry meterRegistry) {
+        super(meterRegistry, "mm_cache_evictions");
+    }
+
+    public void increment(String cacheName, String tier, String cause) {
+        findOrCreate(Tags.of("cache", cacheName, "tier", tier, "cause", cause)).increment();
+    }
+}
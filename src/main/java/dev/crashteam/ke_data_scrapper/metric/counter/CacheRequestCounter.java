@@ -0,0 +1,17 @@
+package dev.crashteam.ke_data_scrapper.metric.counter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CacheRequestCounter extends BasicCounter {
+
+    public CacheRequestCounter(MeterRegistry meterRegistry) {
+        super(meterRegistry, "mm_cache_requests");
+    }
+
+    public void increment(String cacheName, String tier, String result) {
+        findOrCreate(Tags.of("cache", cacheName, "tier", tier, "result", result)).increment();
+    }
+}
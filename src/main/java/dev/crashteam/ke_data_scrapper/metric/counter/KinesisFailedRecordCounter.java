@@ -0,0 +1,17 @@
+package dev.crashteam.ke_data_scrapper.metric.counter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+
+@Component
+public class KinesisFailedRecordCounter extends BasicCounter {
+
+    public KinesisFailedRecordCounter(MeterRegistry meterRegistry) {
+        super(meterRegistry, "mm_kinesis_failed_records");
+    }
+
+    public void increment(String outcome, int count) {
+        findOrCreate(Tags.of("outcome", outcome)).increment(count);
+    }
+}
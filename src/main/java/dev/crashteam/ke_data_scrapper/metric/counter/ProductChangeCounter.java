@@ -0,0 +1,17 @@
+package dev.crashteam.ke_data_scrapper.metric.counter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProductChangeCounter extends BasicCounter {
+
+    public ProductChangeCounter(MeterRegistry meterRegistry) {
+        super(meterRegistry, "mm_product_change_detection");
+    }
+
+    public void increment(String result, int count) {
+        findOrCreate(Tags.of("result", result)).increment(count);
+    }
+}
@@ -0,0 +1,17 @@
+package dev.crashteam.ke_data_scrapper.metric.counter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ThrottledRequestCounter extends BasicCounter {
+
+    public ThrottledRequestCounter(MeterRegistry meterRegistry) {
+        super(meterRegistry, "mm_rate_limiter_throttled");
+    }
+
+    public void increment(String requestType) {
+        findOrCreate(Tags.of("request_type", requestType)).increment();
+    }
+}
@@ -0,0 +1,23 @@
+package dev.crashteam.ke_data_scrapper.metric.gauge;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class CategorySnapshotAgeGauge {
+
+    private final AtomicLong createdAt = new AtomicLong();
+
+    public CategorySnapshotAgeGauge(MeterRegistry meterRegistry) {
+        Gauge.builder("mm_category_snapshot_age_seconds", createdAt,
+                        it -> it.get() == 0 ? Double.NaN : (System.currentTimeMillis() - it.get()) / 1000.0)
+                .register(meterRegistry);
+    }
+
+    public void set(long createdAtMillis) {
+        createdAt.set(createdAtMillis);
+    }
+}
@@ -0,0 +1,40 @@
+package dev.crashteam.ke_data_scrapper.metric.gauge;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@RequiredArgsConstructor
+public class PipelineQueueGauge {
+
+    private static final String METRIC_NAME = "mm_pipeline_queue_depth";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Set<Collection<?>>> stageQueues = new ConcurrentHashMap<>();
+
+    public void register(String stage, Collection<?> queue) {
+        stageQueues.computeIfAbsent(stage, this::initGauge).add(queue);
+    }
+
+    public void unregister(String stage, Collection<?> queue) {
+        Set<Collection<?>> queues = stageQueues.get(stage);
+        if (queues != null) {
+            queues.remove(queue);
+        }
+    }
+
+    private Set<Collection<?>> initGauge(String stage) {
+        Set<Collection<?>> queues = ConcurrentHashMap.newKeySet();
+        Gauge.builder(METRIC_NAME, queues, it -> it.stream().mapToInt(Collection::size).sum())
+                .tag("stage", stage)
+                .register(meterRegistry);
+        return queues;
+    }
+}
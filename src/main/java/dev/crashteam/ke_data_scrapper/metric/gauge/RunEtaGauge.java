@@ -0,0 +1,22 @@
+package dev.crashteam.ke_data_scrapper.metric.gauge;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class RunEtaGauge {
+
+    private final AtomicLong etaSeconds = new AtomicLong();
+
+    public RunEtaGauge(MeterRegistry meterRegistry) {
+        Gauge.builder("mm_product_run_eta_seconds", etaSeconds, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    public void set(long seconds) {
+        etaSeconds.set(seconds);
+    }
+}
@@ -0,0 +1,19 @@
+package dev.crashteam.ke_data_scrapper.metric.timer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class KinesisFlushRecorder extends BasicTimer {
+
+    public KinesisFlushRecorder(MeterRegistry meterRegistry) {
+        super(meterRegistry, "mm_kinesis_flush");
+    }
+
+    public void record(Long timeMillis, String status) {
+        findOrCreate(Tags.of("status", status)).record(timeMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,19 @@
+package dev.crashteam.ke_data_scrapper.metric.timer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class PermitWaitRecorder extends BasicTimer {
+
+    public PermitWaitRecorder(MeterRegistry meterRegistry) {
+        super(meterRegistry, "mm_rate_limiter_wait");
+    }
+
+    public void record(Long timeMillis, String requestType) {
+        findOrCreate(Tags.of("request_type", requestType)).record(timeMillis, TimeUnit.MILLISECONDS);
+    }
+}
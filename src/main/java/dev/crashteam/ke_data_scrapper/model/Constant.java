@@ -5,6 +5,8 @@ public class Constant {
     public static final String PRODUCT_CATEGORY_MAP_KEY = "productCategoryMap";
     public static final String CATEGORY_ID_KEY = "categoryId";
     public static final String POSITION_CATEGORY_KEY = "positionCategoryId";
+    public static final String RUN_ID_KEY = "runId";
+    public static final String GENERATION_KEY = "generation";
     public static final String PRODUCT_MASTER_JOB_TRIGGER = "product_master_trigger";
     public static final String POSITION_MASTER_JOB_TRIGGER = "position_master_trigger";
     public static final String CATEGORY_MASTER_JOB_TRIGGER = "category_master_trigger";
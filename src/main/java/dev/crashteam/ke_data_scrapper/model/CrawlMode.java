@@ -0,0 +1,6 @@
+package dev.crashteam.ke_data_scrapper.model;
+
+public enum CrawlMode {
+    SPLIT,
+    UNIFIED
+}
@@ -0,0 +1,17 @@
+package dev.crashteam.ke_data_scrapper.model;
+
+public enum KeRequestType {
+    PRODUCT("product"),
+    GQL("gql"),
+    CATEGORY("category");
+
+    KeRequestType(String value) {
+        this.value = value;
+    }
+
+    private final String value;
+
+    public String getValue() {
+        return value;
+    }
+}
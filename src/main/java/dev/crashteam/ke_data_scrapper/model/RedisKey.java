@@ -2,7 +2,25 @@ package dev.crashteam.ke_data_scrapper.model;
 
 public enum RedisKey {
 
-    KE_PRODUCT("KE_PRODUCT");
+    KE_PRODUCT_SEEN("KE_PRODUCT_SEEN:%s"),
+    KE_PRODUCT_SEEN_OVERFLOW("KE_PRODUCT_SEEN:%s:overflow"),
+    KE_PRODUCT_RUN("KE_PRODUCT_RUN"),
+    KE_PRODUCT_PREVIOUS_RUN("KE_PRODUCT_PREVIOUS_RUN"),
+    KE_PRODUCT_FINGERPRINT("KE_PRODUCT_FINGERPRINT:%s"),
+    KE_WORK_QUEUE("KE_WORK_QUEUE:%s"),
+    KE_WORK_LEASE("KE_WORK_LEASE:%s"),
+    KE_WORK_LEASE_OWNER("KE_WORK_LEASE:%s:owner"),
+    KE_WORK_PROGRESS("KE_WORK_PROGRESS:%s"),
+    KE_WORK_SPLIT("KE_WORK_SPLIT:%s"),
+    KE_CATEGORY_STATS("KE_CATEGORY_STATS"),
+    KE_PRODUCT_CHECKPOINT("KE_PRODUCT_CHECKPOINT:%s"),
+    KE_JOB_GENERATION("KE_JOB_GENERATION:%s"),
+    KE_JOB_ACTIVE("KE_JOB_ACTIVE:%s:%s"),
+    KE_CATEGORY_SNAPSHOT("KE_CATEGORY_SNAPSHOT"),
+    KE_CATEGORY_SNAPSHOT_VERSION("KE_CATEGORY_SNAPSHOT_VERSION"),
+    KE_POSITION_STATE("KE_POSITION_STATE:%s"),
+    KE_POSITION_SNAPSHOT("KE_POSITION_SNAPSHOT"),
+    KE_CACHE_INVALIDATION("KE_CACHE_INVALIDATION");
 
     private final String key;
 
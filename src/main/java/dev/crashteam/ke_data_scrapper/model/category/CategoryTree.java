@@ -0,0 +1,368 @@
+package dev.crashteam.ke_data_scrapper.model.category;
+
+import dev.crashteam.ke_data_scrapper.model.ke.KeCategory;
+import dev.crashteam.ke_data_scrapper.model.ke.KeGQLResponse;
+import org.springframework.util.CollectionUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable category tree merged from the root categories response and the GQL category tree.
+ * Nodes are addressed by index, children are stored as a CSR adjacency list, so walking the tree
+ * is linear in its size. Listed categories come from the root categories response, the rest are
+ * only known from the GQL tree. A category present in both keeps its listed parent.
+ */
+public final class CategoryTree {
+
+    private final long[] ids;
+    private final String[] titles;
+    private final boolean[] adult;
+    private final boolean[] eco;
+    private final boolean[] listed;
+    private final int[] parents;
+    private final int[] childStart;
+    private final int[] children;
+    private final int[] roots;
+    private final LongIntMap index;
+
+    private CategoryTree(long[] ids, String[] titles, boolean[] adult, boolean[] eco, boolean[] listed,
+                         int[] parents, int[] roots) {
+        int size = ids.length;
+        this.ids = ids;
+        this.titles = titles;
+        this.adult = adult;
+        this.eco = eco;
+        this.listed = listed;
+        this.parents = parents;
+        this.roots = roots;
+        this.index = new LongIntMap(size);
+        for (int node = 0; node < size; node++) {
+            index.put(ids[node], node);
+        }
+        this.childStart = new int[size + 1];
+        for (int node = 0; node < size; node++) {
+            if (parents[node] >= 0) {
+                childStart[parents[node] + 1]++;
+            }
+        }
+        for (int node = 0; node < size; node++) {
+            childStart[node + 1] += childStart[node];
+        }
+        this.children = new int[childStart[size]];
+        int[] fill = Arrays.copyOf(childStart, size);
+        for (int node = 0; node < size; node++) {
+            if (parents[node] >= 0) {
+                children[fill[parents[node]]++] = node;
+            }
+        }
+    }
+
+    public static CategoryTree build(
+            List<KeCategory.Data> rootCategories,
+            List<KeGQLResponse.ResponseCategoryWrapper> categoryTree) {
+        Builder builder = new Builder(rootCategories.size() * 16 + (categoryTree != null ? categoryTree.size() : 0));
+        for (KeCategory.Data rootCategory : rootCategories) {
+            int root = builder.addListed(rootCategory, -1);
+            if (root >= 0) {
+                builder.roots.add(root);
+            }
+        }
+        if (!CollectionUtils.isEmpty(categoryTree)) {
+            long[] parentIds = new long[categoryTree.size()];
+            int[] nodes = new int[categoryTree.size()];
+            int unlisted = 0;
+            for (KeGQLResponse.ResponseCategoryWrapper wrapper : categoryTree) {
+                KeGQLResponse.ResponseCategory category = wrapper.getCategory();
+                if (category == null || category.getId() == null || category.getParent() == null
+                        || category.getParent().getId() == null || builder.index.get(category.getId()) >= 0) {
+                    continue;
+                }
+                nodes[unlisted] = builder.add(category.getId(), category.getTitle(), category.isAdult(), false, false);
+                parentIds[unlisted++] = category.getParent().getId();
+            }
+            // parents are linked once all nodes are known, the GQL tree is not ordered parent first
+            for (int i = 0; i < unlisted; i++) {
+                builder.parents[nodes[i]] = builder.index.get(parentIds[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    public byte[] encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(size() * 48);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(size());
+            for (int node = 0; node < size(); node++) {
+                out.writeLong(ids[node]);
+                out.writeInt(parents[node]);
+                out.writeByte((adult[node] ? 1 : 0) | (eco[node] ? 2 : 0) | (listed[node] ? 4 : 0) | (titles[node] != null ? 8 : 0));
+                if (titles[node] != null) {
+                    out.writeUTF(titles[node]);
+                }
+            }
+            out.writeInt(roots.length);
+            for (int root : roots) {
+                out.writeInt(root);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static CategoryTree decode(byte[] value) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+            int size = in.readInt();
+            long[] ids = new long[size];
+            String[] titles = new String[size];
+            boolean[] adult = new boolean[size];
+            boolean[] eco = new boolean[size];
+            boolean[] listed = new boolean[size];
+            int[] parents = new int[size];
+            for (int node = 0; node < size; node++) {
+                ids[node] = in.readLong();
+                parents[node] = in.readInt();
+                int flags = in.readByte();
+                adult[node] = (flags & 1) != 0;
+                eco[node] = (flags & 2) != 0;
+                listed[node] = (flags & 4) != 0;
+                titles[node] = (flags & 8) != 0 ? in.readUTF() : null;
+            }
+            int[] roots = new int[in.readInt()];
+            for (int i = 0; i < roots.length; i++) {
+                roots[i] = in.readInt();
+            }
+            return new CategoryTree(ids, titles, adult, eco, listed, parents, roots);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int[] roots() {
+        return roots.clone();
+    }
+
+    /**
+     * @return node of the category or {@code -1} if it is not in the tree
+     */
+    public int indexOf(long categoryId) {
+        return index.get(categoryId);
+    }
+
+    public long id(int node) {
+        return ids[node];
+    }
+
+    public String title(int node) {
+        return titles[node];
+    }
+
+    public boolean isAdult(int node) {
+        return adult[node];
+    }
+
+    public boolean isEco(int node) {
+        return eco[node];
+    }
+
+    public boolean isListed(int node) {
+        return listed[node];
+    }
+
+    public int childCount(int node) {
+        return childStart[node + 1] - childStart[node];
+    }
+
+    public int child(int node, int i) {
+        return children[childStart[node] + i];
+    }
+
+    /**
+     * @return ids of all categories reachable from the roots
+     */
+    public Set<Long> ids() {
+        Set<Long> result = new HashSet<>(size() * 4 / 3 + 1);
+        int[] stack = new int[size()];
+        int top = 0;
+        for (int root : roots) {
+            stack[top++] = root;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            result.add(ids[node]);
+            for (int i = childStart[node]; i < childStart[node + 1]; i++) {
+                stack[top++] = children[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return root category ids mapped to the ids of their listed children
+     */
+    public Map<Long, Set<Long>> rootIdsMap() {
+        Map<Long, Set<Long>> rootIdsMap = new LinkedHashMap<>();
+        for (int root : roots) {
+            Set<Long> rootChildren = new LinkedHashSet<>();
+            for (int i = childStart[root]; i < childStart[root + 1]; i++) {
+                if (listed[children[i]]) {
+                    rootChildren.add(ids[children[i]]);
+                }
+            }
+            rootIdsMap.put(ids[root], rootChildren);
+        }
+        return rootIdsMap;
+    }
+
+    private static final class Builder {
+
+        private final LongIntMap index;
+        private final List<Integer> roots = new ArrayList<>();
+        private long[] ids;
+        private String[] titles;
+        private boolean[] adult;
+        private boolean[] eco;
+        private boolean[] listed;
+        private int[] parents;
+        private int size;
+
+        private CategoryTree build() {
+            return new CategoryTree(Arrays.copyOf(ids, size), Arrays.copyOf(titles, size), Arrays.copyOf(adult, size),
+                    Arrays.copyOf(eco, size), Arrays.copyOf(listed, size), Arrays.copyOf(parents, size),
+                    roots.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        private Builder(int capacity) {
+            int initial = Math.max(capacity, 16);
+            index = new LongIntMap(initial);
+            ids = new long[initial];
+            titles = new String[initial];
+            adult = new boolean[initial];
+            eco = new boolean[initial];
+            listed = new boolean[initial];
+            parents = new int[initial];
+        }
+
+        private int addListed(KeCategory.Data category, int parent) {
+            if (index.get(category.getId()) >= 0) {
+                return -1;
+            }
+            int node = add(category.getId(), category.getTitle(), category.isAdult(), category.isEco(), true);
+            parents[node] = parent;
+            if (!CollectionUtils.isEmpty(category.getChildren())) {
+                for (KeCategory.Data child : category.getChildren()) {
+                    addListed(child, node);
+                }
+            }
+            return node;
+        }
+
+        private int add(long id, String title, boolean isAdult, boolean isEco, boolean isListed) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                titles = Arrays.copyOf(titles, capacity);
+                adult = Arrays.copyOf(adult, capacity);
+                eco = Arrays.copyOf(eco, capacity);
+                listed = Arrays.copyOf(listed, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+            }
+            int node = size++;
+            ids[node] = id;
+            titles[node] = title;
+            adult[node] = isAdult;
+            eco[node] = isEco;
+            listed[node] = isListed;
+            parents[node] = -1;
+            index.put(id, node);
+            return node;
+        }
+    }
+
+    /**
+     * Open addressing map of category id to node, without boxing.
+     */
+    private static final class LongIntMap {
+
+        private long[] keys;
+        private int[] values;
+        private boolean[] used;
+        private int size;
+
+        private LongIntMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected * 2, 16) - 1) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            used = new boolean[capacity];
+        }
+
+        private int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        private void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
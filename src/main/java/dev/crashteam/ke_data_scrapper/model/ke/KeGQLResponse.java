@@ -71,6 +71,7 @@ public class KeGQLResponse {
         private Long minFullPrice;
         private Long minSellPrice;
         private Long productId;
+        private Double rating;
         private String title;
         private List<CharacteristicValue> characteristicValues;
     }
@@ -1,5 +1,6 @@
 package dev.crashteam.ke_data_scrapper.model.ke;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
@@ -39,6 +40,8 @@ public class KeProduct implements Serializable {
         private List<CharacteristicsData> characteristics;
         private List<SkuData> skuList;
         private ProductSeller seller;
+        // not mapped anywhere, skipped while reading the response
+        @JsonIgnore
         private Feedback topFeedback;
         private boolean isEco;
         private boolean adultCategory;
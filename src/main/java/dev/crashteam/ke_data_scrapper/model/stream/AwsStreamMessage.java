@@ -10,7 +10,18 @@ import java.util.List;
 @EqualsAndHashCode(callSuper = true)
 public class AwsStreamMessage extends Message<List<PutRecordsRequestEntry>> {
 
+    /**
+     * Called once every entry of the message was accepted by Kinesis, never if one was dropped.
+     */
+    @EqualsAndHashCode.Exclude
+    private final Runnable onDelivered;
+
     public AwsStreamMessage(String stream, List<PutRecordsRequestEntry> entries) {
+        this(stream, entries, null);
+    }
+
+    public AwsStreamMessage(String stream, List<PutRecordsRequestEntry> entries, Runnable onDelivered) {
         super(stream, entries);
+        this.onDelivered = onDelivered;
     }
 }
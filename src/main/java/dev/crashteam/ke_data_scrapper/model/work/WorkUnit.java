@@ -0,0 +1,30 @@
+package dev.crashteam.ke_data_scrapper.model.work;
+
+/**
+ * Offset range {@code [startOffset, endOffset)} of one category in a product run. A head unit covers
+ * the whole category until its first page tells the total and the rest is split off.
+ */
+public record WorkUnit(String runId, Long categoryId, long startOffset, long endOffset, double priority) {
+
+    public static final long UNBOUNDED = Long.MAX_VALUE;
+
+    public static WorkUnit head(String runId, Long categoryId, double priority) {
+        return new WorkUnit(runId, categoryId, 0, UNBOUNDED, priority);
+    }
+
+    public boolean isHead() {
+        return startOffset == 0 && endOffset == UNBOUNDED;
+    }
+
+    public String encode() {
+        return runId + ':' + categoryId + ':' + startOffset + ':' + endOffset;
+    }
+
+    public static WorkUnit decode(String value, double priority) {
+        String[] parts = value.split(":");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed work unit - " + value);
+        }
+        return new WorkUnit(parts[0], Long.valueOf(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]), priority);
+    }
+}
@@ -0,0 +1,117 @@
+package dev.crashteam.ke_data_scrapper.service;
+
+import dev.crashteam.ke_data_scrapper.metric.gauge.CategorySnapshotAgeGauge;
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import dev.crashteam.ke_data_scrapper.model.category.CategoryTree;
+import dev.crashteam.ke_data_scrapper.service.integration.KeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Versioned category tree shared by all jobs of the cluster. Master jobs fetch it once per run with
+ * {@link #refresh()}, every other job gets the snapshot from memory and reloads it from Redis only
+ * when the version moved, so a run makes a single round of category requests.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategorySnapshotService {
+
+    private static final int HEADER_SIZE = 2 * Long.BYTES;
+
+    private final KeService keService;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CategorySnapshotAgeGauge snapshotAgeGauge;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Fetches the category tree and publishes it as a new snapshot version.
+     */
+    public synchronized CategoryTree refresh() {
+        Instant start = Instant.now();
+        CategoryTree tree = keService.getCategoryTree();
+        Long version = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.stringCommands().incr(bytes(RedisKey.KE_CATEGORY_SNAPSHOT_VERSION.getKey())));
+        Snapshot refreshed = new Snapshot(version != null ? version : 0, System.currentTimeMillis(), tree);
+        byte[] value = refreshed.encode();
+        redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.stringCommands().set(bytes(RedisKey.KE_CATEGORY_SNAPSHOT.getKey()), value));
+        use(refreshed);
+        log.info("Refreshed category snapshot version - {} of {} categories ({} bytes) in {} ms",
+                refreshed.version(), tree.size(), value.length, Duration.between(start, Instant.now()).toMillis());
+        return tree;
+    }
+
+    /**
+     * @return latest category snapshot, refreshed if none was published yet
+     */
+    public CategoryTree getTree() {
+        byte[] versionValue = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(bytes(RedisKey.KE_CATEGORY_SNAPSHOT_VERSION.getKey())));
+        if (versionValue == null) {
+            return load();
+        }
+        long version = Long.parseLong(new String(versionValue, StandardCharsets.UTF_8));
+        Snapshot current = snapshot;
+        if (current != null && current.version() >= version) {
+            return current.tree();
+        }
+        return load();
+    }
+
+    private synchronized CategoryTree load() {
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(bytes(RedisKey.KE_CATEGORY_SNAPSHOT.getKey())));
+        if (value == null) {
+            return refresh();
+        }
+        try {
+            Snapshot loaded = Snapshot.decode(value);
+            if (snapshot == null || loaded.version() > snapshot.version()) {
+                use(loaded);
+                log.info("Loaded category snapshot version - {} of {} categories", loaded.version(), loaded.tree().size());
+            }
+            return snapshot.tree();
+        } catch (Exception e) {
+            log.warn("Failed to decode category snapshot, refreshing", e);
+            return refresh();
+        }
+    }
+
+    private void use(Snapshot loaded) {
+        snapshot = loaded;
+        snapshotAgeGauge.set(loaded.createdAt());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record Snapshot(long version, long createdAt, CategoryTree tree) {
+
+        byte[] encode() {
+            byte[] treeBytes = tree.encode();
+            return ByteBuffer.allocate(HEADER_SIZE + treeBytes.length)
+                    .putLong(version)
+                    .putLong(createdAt)
+                    .put(treeBytes)
+                    .array();
+        }
+
+        static Snapshot decode(byte[] value) {
+            ByteBuffer buffer = ByteBuffer.wrap(value);
+            return new Snapshot(buffer.getLong(), buffer.getLong(),
+                    CategoryTree.decode(Arrays.copyOfRange(value, HEADER_SIZE, value.length)));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package dev.crashteam.ke_data_scrapper.service;
+
+import dev.crashteam.ke_data_scrapper.model.Constant;
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.JobDataMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Cooperative cancellation of per-category jobs. Every master run advances the generation of its job
+ * type; jobs of an older generation see it between pages, drain what is in flight and ack by leaving
+ * the active set of their generation, which the master waits to become empty.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobGenerationService {
+
+    private static final long DRAIN_POLL_INTERVAL = 200;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${app.job.generation.check-interval}")
+    private long checkInterval;
+
+    @Value("${app.job.generation.active-ttl}")
+    private long activeTtl;
+
+    /**
+     * @return new generation, jobs started with any previous one are asked to stop
+     */
+    public long advance(String jobType) {
+        Long generation = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.stringCommands().incr(bytes(RedisKey.KE_JOB_GENERATION.getKey().formatted(jobType))));
+        return generation != null ? generation : 0;
+    }
+
+    public long current(String jobType) {
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(bytes(RedisKey.KE_JOB_GENERATION.getKey().formatted(jobType))));
+        return value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : 0;
+    }
+
+    /**
+     * Waits until every job of the generation acked or the timeout passed.
+     *
+     * @return {@code true} if all jobs acked
+     */
+    public boolean awaitDrained(String jobType, long generation, Duration timeout) {
+        byte[] key = activeKey(jobType, generation);
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        while (true) {
+            Long active = redisTemplate.execute((RedisCallback<Long>) connection -> connection.setCommands().sCard(key));
+            if (active == null || active == 0) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn("{} jobs of {} generation - {} did not ack in {} seconds", active, jobType, generation, timeout.toSeconds());
+                return false;
+            }
+            try {
+                Thread.sleep(DRAIN_POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return generation the job was scheduled with, the current one for jobs scheduled before generations existed
+     */
+    public long generationOf(JobDataMap jobDataMap, String jobType) {
+        String generation = jobDataMap.getString(Constant.GENERATION_KEY);
+        return generation != null ? Long.parseLong(generation) : current(jobType);
+    }
+
+    public Registration register(String jobType, long generation, String jobName) {
+        byte[] key = activeKey(jobType, generation);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.setCommands().sAdd(key, bytes(jobName));
+            connection.keyCommands().expire(key, activeTtl);
+            return null;
+        });
+        return new Registration(jobType, generation, jobName);
+    }
+
+    private static byte[] activeKey(String jobType, long generation) {
+        return bytes(RedisKey.KE_JOB_ACTIVE.getKey().formatted(jobType, generation));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Active job of a generation. The generation is re-read at most once per check interval,
+     * so it can be checked for every item.
+     */
+    public final class Registration implements AutoCloseable {
+
+        private final String jobType;
+        private final long generation;
+        private final String jobName;
+        private volatile boolean current = true;
+        private volatile long checkedAt;
+
+        private Registration(String jobType, long generation, String jobName) {
+            this.jobType = jobType;
+            this.generation = generation;
+            this.jobName = jobName;
+        }
+
+        public boolean isCurrent() {
+            long now = System.currentTimeMillis();
+            if (current && now - checkedAt >= checkInterval) {
+                checkedAt = now;
+                try {
+                    current = current(jobType) <= generation;
+                    if (!current) {
+                        log.info("Job - {} of generation - {} superseded, draining", jobName, generation);
+                    }
+                } catch (Exception e) {
+                    log.warn("Failed to check generation of job - {}", jobName, e);
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public void close() {
+            redisTemplate.execute((RedisCallback<Long>) connection ->
+                    connection.setCommands().sRem(activeKey(jobType, generation), bytes(jobName)));
+        }
+    }
+}
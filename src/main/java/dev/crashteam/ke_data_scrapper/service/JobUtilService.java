@@ -3,11 +3,13 @@ package dev.crashteam.ke_data_scrapper.service;
 import dev.crashteam.ke_data_scrapper.exception.KeGqlRequestException;
 import dev.crashteam.ke_data_scrapper.mapper.cache.KeGraphToCachedGraph;
 import dev.crashteam.ke_data_scrapper.mapper.cache.KeProductToCachedProduct;
+import dev.crashteam.ke_data_scrapper.model.KeRequestType;
 import dev.crashteam.ke_data_scrapper.model.cache.CachedProductData;
 import dev.crashteam.ke_data_scrapper.model.cache.GraphQlCacheData;
 import dev.crashteam.ke_data_scrapper.model.ke.KeGQLResponse;
 import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
 import dev.crashteam.ke_data_scrapper.service.integration.KeService;
+import dev.crashteam.ke_data_scrapper.service.limiter.KeRateLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.JobExecutionContext;
@@ -32,6 +34,7 @@ public class JobUtilService {
     private final KeService keService;
     private final RetryTemplate retryTemplate;
     private final MetricService metricService;
+    private final KeRateLimiter rateLimiter;
 
     public KeProduct.ProductData getProductData(Long itemId) {
         Instant start = Instant.now();
@@ -69,17 +72,15 @@ public class JobUtilService {
         log.info("Deleting product cache");
     }
 
-    @Cacheable(value = "graphQlCache", key = "#offset + #categoryId + #limit")
-    public GraphQlCacheData getCachedGraphData(AtomicLong offset, Long categoryId, Long limit) {
+    @Cacheable(value = "graphQlCache", key = "#categoryId + ':' + #offset.get() + ':' + #limit + ':' + #runId",
+            unless = "#result == null")
+    public GraphQlCacheData getCachedGraphData(AtomicLong offset, Long categoryId, Long limit, String runId) {
         return KeGraphToCachedGraph.keGQLResponseToCachedGraph(getResponse(offset, categoryId, limit));
     }
 
-    public GraphQlCacheData getSimplifiedGraphData(AtomicLong offset, Long categoryId, Long limit) {
-        return KeGraphToCachedGraph.keGQLResponseToCachedGraph(getResponse(offset, categoryId, limit));
-    }
-
-    @CachePut(value = "graphQlCache", key = "#offset + #categoryId + #limit")
-    public GraphQlCacheData putCachedGraphData(KeGQLResponse keGQLResponse, AtomicLong offset, Long categoryId, Long limit) {
+    @CachePut(value = "graphQlCache", key = "#categoryId + ':' + #offset.get() + ':' + #limit + ':' + #runId",
+            unless = "#result == null")
+    public GraphQlCacheData putCachedGraphData(KeGQLResponse keGQLResponse, AtomicLong offset, Long categoryId, Long limit, String runId) {
         return KeGraphToCachedGraph.keGQLResponseToCachedGraph(keGQLResponse);
     }
 
@@ -101,6 +102,7 @@ public class JobUtilService {
                             return null;
                         } else if (error.getMessage().contains("429")) {
                             log.warn("Got 429 http status from request for category id {}", categoryId);
+                            rateLimiter.onThrottle(KeRequestType.GQL);
                             throw new KeGqlRequestException("Request ended with error message - %s".formatted(error.getMessage()));
                         } else {
                             offset.addAndGet(limit);
@@ -133,6 +135,7 @@ public class JobUtilService {
                             return null;
                         } else if (error.getMessage().contains("429")) {
                             log.warn("Got 429 http status from request for category id {}", categoryId);
+                            rateLimiter.onThrottle(KeRequestType.GQL);
                             throw new KeGqlRequestException("Request ended with error message - %s".formatted(error.getMessage()));
                         } else {
                             offset.addAndGet(limit);
@@ -1,7 +1,15 @@
 package dev.crashteam.ke_data_scrapper.service;
 
+import dev.crashteam.ke_data_scrapper.metric.counter.CacheEvictionCounter;
+import dev.crashteam.ke_data_scrapper.metric.counter.CacheRequestCounter;
 import dev.crashteam.ke_data_scrapper.metric.counter.JobErrorCounter;
 import dev.crashteam.ke_data_scrapper.metric.counter.JobFinishedCounter;
+import dev.crashteam.ke_data_scrapper.metric.counter.KinesisFailedRecordCounter;
+import dev.crashteam.ke_data_scrapper.metric.counter.PositionChangeCounter;
+import dev.crashteam.ke_data_scrapper.metric.counter.ProductChangeCounter;
+import dev.crashteam.ke_data_scrapper.metric.counter.ThrottledRequestCounter;
+import dev.crashteam.ke_data_scrapper.metric.timer.KinesisFlushRecorder;
+import dev.crashteam.ke_data_scrapper.metric.timer.PermitWaitRecorder;
 import dev.crashteam.ke_data_scrapper.metric.timer.ResponseTimeRecorder;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -13,6 +21,14 @@ public class MetricService {
     private final JobFinishedCounter jobFinishedCounter;
     private final JobErrorCounter jobErrorCounter;
     private final ResponseTimeRecorder responseTimeRecorder;
+    private final PermitWaitRecorder permitWaitRecorder;
+    private final ThrottledRequestCounter throttledRequestCounter;
+    private final KinesisFlushRecorder kinesisFlushRecorder;
+    private final KinesisFailedRecordCounter kinesisFailedRecordCounter;
+    private final CacheRequestCounter cacheRequestCounter;
+    private final CacheEvictionCounter cacheEvictionCounter;
+    private final ProductChangeCounter productChangeCounter;
+    private final PositionChangeCounter positionChangeCounter;
 
     public void incrementFinishJob(String jobType) {
         jobFinishedCounter.increment(jobType);
@@ -25,4 +41,36 @@ public class MetricService {
     public void recordResponseTime(Long timeMillis, String requestType) {
         responseTimeRecorder.record(timeMillis, requestType);
     }
+
+    public void recordPermitWait(Long timeMillis, String requestType) {
+        permitWaitRecorder.record(timeMillis, requestType);
+    }
+
+    public void incrementThrottled(String requestType) {
+        throttledRequestCounter.increment(requestType);
+    }
+
+    public void recordKinesisFlush(Long timeMillis, String status) {
+        kinesisFlushRecorder.record(timeMillis, status);
+    }
+
+    public void incrementKinesisFailedRecords(String outcome, int count) {
+        kinesisFailedRecordCounter.increment(outcome, count);
+    }
+
+    public void incrementCacheRequest(String cacheName, String tier, boolean hit) {
+        cacheRequestCounter.increment(cacheName, tier, hit ? "hit" : "miss");
+    }
+
+    public void incrementCacheEviction(String cacheName, String tier, String cause) {
+        cacheEvictionCounter.increment(cacheName, tier, cause);
+    }
+
+    public void incrementProductChange(String result, int count) {
+        productChangeCounter.increment(result, count);
+    }
+
+    public void incrementPositionChange(String result, int count) {
+        positionChangeCounter.increment(result, count);
+    }
 }
@@ -0,0 +1,161 @@
+package dev.crashteam.ke_data_scrapper.service;
+
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import dev.crashteam.ke_data_scrapper.model.ke.KeGQLResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Keeps a fingerprint of the last fetched catalog card per product with the run it was fetched in, so
+ * product detail is requested only when the card changed or the product was fetched in neither the
+ * current nor the previous run. Fingerprints are stored in hashes of 128 products each, small enough
+ * for Redis to keep them compact.
+ * <p>
+ * The search card carries no stock, so SKU availability changes are not seen by the fingerprint. Tying
+ * staleness to runs, not to wall clock time, bounds them to every second run however long runs take,
+ * which is also how often an unchanged product gets a product event.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductChangeService {
+
+    private static final int BUCKET_BITS = 7;
+    private static final long BUCKET_MASK = (1L << BUCKET_BITS) - 1;
+    private static final int VALUE_SIZE = 2 * Long.BYTES;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long NULL_VALUE = 0x9e3779b97f4a7c15L;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MetricService metricService;
+    private final ProductRunService productRunService;
+
+    @Value("${app.job.product.change-detection.enabled}")
+    private boolean enabled;
+
+    @Value("${app.job.product.change-detection.fingerprint-ttl}")
+    private Duration fingerprintTtl;
+
+    /**
+     * Compares cards against the stored fingerprints with one pipelined round-trip.
+     *
+     * @return ids of products that have to be fetched in the run
+     */
+    public Set<Long> changed(String runId, Collection<KeGQLResponse.CatalogCard> cards) {
+        List<KeGQLResponse.CatalogCard> candidates = cards.stream()
+                .filter(Objects::nonNull)
+                .filter(card -> card.getProductId() != null)
+                .toList();
+        Set<Long> changed = new HashSet<>();
+        if (!enabled) {
+            candidates.forEach(card -> changed.add(card.getProductId()));
+            return changed;
+        }
+        if (candidates.isEmpty()) {
+            return changed;
+        }
+        List<Object> stored = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (KeGQLResponse.CatalogCard card : candidates) {
+                connection.hashCommands().hGet(bucketKey(card.getProductId()), field(card.getProductId()));
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+        // without a known previous run only products fetched in this run are fresh
+        String previousRunId = productRunService.getPreviousRunId();
+        long staleBefore = previousRunId != null ? Long.parseLong(previousRunId) : run(runId);
+        int created = 0;
+        int modified = 0;
+        int stale = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            KeGQLResponse.CatalogCard card = candidates.get(i);
+            if (!(stored.get(i) instanceof byte[] value) || value.length != VALUE_SIZE) {
+                created++;
+                changed.add(card.getProductId());
+                continue;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(value);
+            if (buffer.getLong() != fingerprint(card)) {
+                modified++;
+                changed.add(card.getProductId());
+            } else if (buffer.getLong() < staleBefore) {
+                stale++;
+                changed.add(card.getProductId());
+            }
+        }
+        metricService.incrementProductChange("new", created);
+        metricService.incrementProductChange("changed", modified);
+        metricService.incrementProductChange("stale", stale);
+        metricService.incrementProductChange("unchanged", candidates.size() - created - modified - stale);
+        return changed;
+    }
+
+    /**
+     * Stores the card fingerprint after the product detail was fetched in the run. A bucket expires
+     * after the fingerprint ttl without writes, which only happens once all its products are gone.
+     */
+    public void fetched(String runId, KeGQLResponse.CatalogCard card) {
+        if (!enabled || card.getProductId() == null) {
+            return;
+        }
+        byte[] key = bucketKey(card.getProductId());
+        byte[] value = ByteBuffer.allocate(VALUE_SIZE)
+                .putLong(fingerprint(card))
+                .putLong(run(runId))
+                .array();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hashCommands().hSet(key, field(card.getProductId()), value);
+            connection.keyCommands().expire(key, fingerprintTtl.toSeconds());
+            return null;
+        });
+    }
+
+    /**
+     * Run ids are the fire times of the master job in millis, so they order like the runs.
+     */
+    private static long run(String runId) {
+        return runId != null ? Long.parseLong(runId) : Instant.now().toEpochMilli();
+    }
+
+    static long fingerprint(KeGQLResponse.CatalogCard card) {
+        long hash = FNV_OFFSET;
+        hash = mix(hash, card.getMinSellPrice());
+        hash = mix(hash, card.getMinFullPrice());
+        hash = mix(hash, card.getOrdersQuantity());
+        hash = mix(hash, card.getFeedbackQuantity());
+        hash = mix(hash, card.getRating() == null ? null : Double.doubleToLongBits(card.getRating()));
+        if (card.getCharacteristicValues() != null) {
+            for (KeGQLResponse.CharacteristicValue characteristicValue : card.getCharacteristicValues()) {
+                hash = mix(hash, characteristicValue == null ? null : characteristicValue.getId());
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, Long value) {
+        hash = (hash ^ (value == null ? NULL_VALUE : value)) * FNV_PRIME;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static byte[] bucketKey(Long productId) {
+        return RedisKey.KE_PRODUCT_FINGERPRINT.getKey().formatted(productId >>> BUCKET_BITS)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] field(Long productId) {
+        return String.valueOf(productId & BUCKET_MASK).getBytes(StandardCharsets.UTF_8);
+    }
+}
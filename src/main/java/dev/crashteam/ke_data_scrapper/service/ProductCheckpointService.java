@@ -0,0 +1,119 @@
+package dev.crashteam.ke_data_scrapper.service;
+
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Durable crawl progress of a product run, so a recovered or re-fired job continues where the
+ * previous attempt stopped. A checkpoint holds the category being crawled, the offset up to which
+ * all pages are fully processed and the categories already done in its scope.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductCheckpointService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${app.job.product.checkpoint.interval}")
+    private long interval;
+
+    @Value("${app.job.product.checkpoint.ttl}")
+    private long ttl;
+
+    public Checkpoint load(String runId, String scope) {
+        if (runId == null) {
+            return null;
+        }
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.hashCommands().hGet(checkpointKey(runId), bytes(scope)));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Checkpoint.decode(new String(value, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.warn("Ignoring malformed checkpoint of scope - {} in run - {}", scope, runId, e);
+            return null;
+        }
+    }
+
+    public void save(String runId, String scope, Checkpoint checkpoint) {
+        if (runId == null) {
+            return;
+        }
+        byte[] key = checkpointKey(runId);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hashCommands().hSet(key, bytes(scope), bytes(checkpoint.encode()));
+            connection.keyCommands().expire(key, ttl);
+            return null;
+        });
+    }
+
+    public void clear(String runId, String scope) {
+        if (runId == null) {
+            return;
+        }
+        redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.hashCommands().hDel(checkpointKey(runId), bytes(scope)));
+    }
+
+    /**
+     * @return consumer of completed offsets of {@code categoryId} that saves at most one checkpoint per interval
+     */
+    public LongConsumer tracker(String runId, String scope, Long categoryId, Set<Long> done) {
+        return new LongConsumer() {
+            private long lastSave = System.currentTimeMillis();
+
+            @Override
+            public synchronized void accept(long offset) {
+                long now = System.currentTimeMillis();
+                if (now - lastSave < interval) {
+                    return;
+                }
+                lastSave = now;
+                try {
+                    save(runId, scope, new Checkpoint(categoryId, offset, done));
+                } catch (Exception e) {
+                    log.warn("Failed to save checkpoint of category id - {} on offset - {}", categoryId, offset, e);
+                }
+            }
+        };
+    }
+
+    private static byte[] checkpointKey(String runId) {
+        return bytes(RedisKey.KE_PRODUCT_CHECKPOINT.getKey().formatted(runId));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public record Checkpoint(Long categoryId, long offset, Set<Long> done) {
+
+        String encode() {
+            return categoryId + "|" + offset + "|" + done.stream().map(String::valueOf).collect(Collectors.joining(","));
+        }
+
+        static Checkpoint decode(String value) {
+            String[] parts = value.split("\\|", -1);
+            Set<Long> done = Arrays.stream(parts[2].split(","))
+                    .filter(it -> !it.isEmpty())
+                    .map(Long::valueOf)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            return new Checkpoint(Long.valueOf(parts[0]), Long.parseLong(parts[1]), done);
+        }
+    }
+}
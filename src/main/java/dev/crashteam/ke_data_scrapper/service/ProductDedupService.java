@@ -0,0 +1,91 @@
+package dev.crashteam.ke_data_scrapper.service;
+
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import dev.crashteam.ke_data_scrapper.util.ConcurrentLongBitSet;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+@RequiredArgsConstructor
+public class ProductDedupService {
+
+    private static final Long ADDED = 1L;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final AtomicReference<RunState> runState = new AtomicReference<>();
+
+    @Value("${app.job.product.dedup-ttl}")
+    private long ttl;
+
+    /**
+     * Claims product ids for the given run. Ids already resolved on this node are filtered in memory,
+     * the rest are checked against other nodes with one pipelined SETBIT round-trip on the run bitmap.
+     *
+     * @return ids that were not processed by any node in this run yet
+     */
+    public Set<Long> claim(String runId, Collection<Long> productIds) {
+        ConcurrentLongBitSet seen = seen(runId);
+        List<Long> candidates = productIds.stream()
+                .filter(Objects::nonNull)
+                .filter(id -> !ConcurrentLongBitSet.inRange(id) || !seen.contains(id))
+                .distinct()
+                .toList();
+        Set<Long> claimed = new HashSet<>();
+        if (candidates.isEmpty()) {
+            return claimed;
+        }
+        byte[] bitmapKey = RedisKey.KE_PRODUCT_SEEN.getKey().formatted(runId).getBytes(StandardCharsets.UTF_8);
+        byte[] overflowKey = RedisKey.KE_PRODUCT_SEEN_OVERFLOW.getKey().formatted(runId).getBytes(StandardCharsets.UTF_8);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long productId : candidates) {
+                if (ConcurrentLongBitSet.inRange(productId)) {
+                    connection.stringCommands().setBit(bitmapKey, productId, true);
+                } else {
+                    connection.setCommands().sAdd(overflowKey, String.valueOf(productId).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            connection.keyCommands().expire(bitmapKey, ttl);
+            connection.keyCommands().expire(overflowKey, ttl);
+            return null;
+        });
+        for (int i = 0; i < candidates.size(); i++) {
+            Long productId = candidates.get(i);
+            Object result = results.get(i);
+            if (ConcurrentLongBitSet.inRange(productId)) {
+                seen.add(productId);
+                if (Boolean.FALSE.equals(result)) {
+                    claimed.add(productId);
+                }
+            } else if (ADDED.equals(result)) {
+                claimed.add(productId);
+            }
+        }
+        return claimed;
+    }
+
+    private ConcurrentLongBitSet seen(String runId) {
+        RunState state = runState.get();
+        while (state == null || !Objects.equals(state.runId(), runId)) {
+            RunState created = new RunState(runId, new ConcurrentLongBitSet());
+            if (runState.compareAndSet(state, created)) {
+                return created.seen();
+            }
+            state = runState.get();
+        }
+        return state.seen();
+    }
+
+    private record RunState(String runId, ConcurrentLongBitSet seen) {
+    }
+}
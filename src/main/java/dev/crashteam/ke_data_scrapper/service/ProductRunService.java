@@ -0,0 +1,31 @@
+package dev.crashteam.ke_data_scrapper.service;
+
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class ProductRunService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public void startRun(String runId) {
+        String currentRunId = getCurrentRunId();
+        if (currentRunId != null && !currentRunId.equals(runId)) {
+            redisTemplate.opsForValue().set(RedisKey.KE_PRODUCT_PREVIOUS_RUN.getKey(), currentRunId);
+        }
+        redisTemplate.opsForValue().set(RedisKey.KE_PRODUCT_RUN.getKey(), runId);
+    }
+
+    public String getCurrentRunId() {
+        Object runId = redisTemplate.opsForValue().get(RedisKey.KE_PRODUCT_RUN.getKey());
+        return runId != null ? runId.toString() : null;
+    }
+
+    public String getPreviousRunId() {
+        Object runId = redisTemplate.opsForValue().get(RedisKey.KE_PRODUCT_PREVIOUS_RUN.getKey());
+        return runId != null ? runId.toString() : null;
+    }
+}
@@ -1,15 +1,20 @@
 package dev.crashteam.ke_data_scrapper.service;
 
-import dev.crashteam.ke_data_scrapper.service.integration.KeService;
+import dev.crashteam.ke_data_scrapper.model.Constant;
+import dev.crashteam.ke_data_scrapper.model.category.CategoryTree;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.quartz.SimpleTriggerFactoryBean;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -20,43 +25,56 @@ import static org.quartz.SimpleTrigger.MISFIRE_INSTRUCTION_FIRE_NOW;
 @RequiredArgsConstructor
 public class SimpleTriggerJobCreatorService {
 
-    private final KeService keService;
     private final Scheduler scheduler;
     private final JdbcTemplate jdbcTemplate;
     private final JobUtilService jobUtilService;
+    private final JobGenerationService jobGenerationService;
+    private final CategorySnapshotService categorySnapshotService;
+
+    @Value("${app.job.product.change-detection.enabled}")
+    private boolean changeDetection;
+
+    @Value("${app.job.generation.drain-timeout}")
+    private Duration drainTimeout;
 
     private static final String CALL_DELETE_POSITION_JOBS =
             "CALL deleteProductJobs()";
 
     public void createJob(String jobName, String idKey, Class<? extends Job> jobClass, boolean allIds) {
+        createJob(jobName, idKey, jobClass, allIds, false);
+    }
+
+    /**
+     * @param excludeProductIds skip the roots and their listed children, the categories product jobs crawl
+     */
+    public void createJob(String jobName, String idKey, Class<? extends Job> jobClass, boolean allIds,
+                          boolean excludeProductIds) {
 
         Set<Long> ids;
-        try {
-            for (JobExecutionContext currentlyExecutingJob : scheduler.getCurrentlyExecutingJobs()) {
-                try {
-                    if (!currentlyExecutingJob.getJobDetail().getKey().getName().contains("master")) {
-                        scheduler.interrupt(currentlyExecutingJob.getJobDetail().getKey());
-                        Thread.sleep(20000L);
-                    }
-                } catch (Exception e) {
-                    log.error("Failed to interrupt executing jobs with exception ", e);
-                }
-            }
-        } catch (Exception e) {
-            log.error("Failed to interrupt executing jobs with exception ", e);
-        }
+        long generation = supersedeRunningJobs(jobClass);
         deleteProductJobs(6);
+        CategoryTree categoryTree = categorySnapshotService.refresh();
+        Set<Long> productIds = new HashSet<>();
+        for (Map.Entry<Long, Set<Long>> root : categoryTree.rootIdsMap().entrySet()) {
+            productIds.add(root.getKey());
+            productIds.addAll(root.getValue());
+        }
         if (!allIds) {
-            ids = keService.getIds(false);
+            ids = productIds;
         } else {
-            ids = keService.getAllIds();
+            ids = categoryTree.ids();
+            if (excludeProductIds) {
+                ids.removeAll(productIds);
+            }
         }
+        log.info("Creating {} jobs for {} categories", jobClass.getSimpleName(), ids.size());
         for (Long categoryId : ids) {
             String name = jobName.formatted(categoryId);
             JobKey jobKey = new JobKey(name);
             JobDetail jobDetail = JobBuilder.newJob(jobClass)
                     .withIdentity(jobKey).build();
             jobDetail.getJobDataMap().put(idKey, String.valueOf(categoryId));
+            jobDetail.getJobDataMap().put(Constant.GENERATION_KEY, String.valueOf(generation));
 
             SimpleTriggerFactoryBean factoryBean = new SimpleTriggerFactoryBean();
             factoryBean.setStartTime(new Date());
@@ -68,9 +86,8 @@ public class SimpleTriggerJobCreatorService {
             factoryBean.afterPropertiesSet();
 
             try {
-                boolean exists = scheduler.checkExists(jobKey);
-                if (exists) continue;
-                scheduler.scheduleJob(jobDetail, factoryBean.getObject());
+                // a not yet fired job of the previous run would start with a superseded generation
+                scheduler.scheduleJob(jobDetail, Set.of(factoryBean.getObject()), true);
             } catch (SchedulerException e) {
                 log.warn("Scheduler exception occurred with message: {}", e.getMessage());
             } catch (Exception e) {
@@ -79,26 +96,20 @@ public class SimpleTriggerJobCreatorService {
         }
     }
 
-    public void createLightJob(String jobName, String idKey, Class<? extends Job> jobClass) {
-
-        Map<Long, Set<Long>> rootIdsMap = keService.getRootIdsMap();
-        log.info("Creating light job for {}", jobClass.getName());
-        try {
-            for (JobExecutionContext currentlyExecutingJob : scheduler.getCurrentlyExecutingJobs()) {
-                try {
-                    if (!currentlyExecutingJob.getJobDetail().getKey().getName().contains("master")) {
-                        scheduler.interrupt(currentlyExecutingJob.getJobDetail().getKey());
-                        Thread.sleep(20000L);
-                    }
-                } catch (Exception e) {
-                    log.error("Failed to interrupt executing jobs with exception ", e);
-                }
-            }
-        } catch (Exception e) {
-            log.error("Failed to interrupt executing jobs with exception ", e);
+    public void evictRunCaches() {
+        if (!changeDetection) {
+            // unchanged products are served from the product cache, so it has to outlive the run
+            jobUtilService.evictProductCache();
         }
-        jobUtilService.evictProductCache();
         jobUtilService.evictGraphCache();
+    }
+
+    public void createLightJob(String jobName, String idKey, Class<? extends Job> jobClass, String runId) {
+
+        Map<Long, Set<Long>> rootIdsMap = categorySnapshotService.getTree().rootIdsMap();
+        log.info("Creating light job for {}", jobClass.getName());
+        long generation = supersedeRunningJobs(jobClass);
+        evictRunCaches();
         rootIdsMap.forEach((categoryId, children) -> {
             String name = jobName.formatted(categoryId);
             JobKey jobKey = new JobKey(name);
@@ -107,6 +118,8 @@ public class SimpleTriggerJobCreatorService {
                     .requestRecovery(true)
                     .build();
             jobDetail.getJobDataMap().put(idKey, String.valueOf(categoryId));
+            jobDetail.getJobDataMap().put(Constant.RUN_ID_KEY, runId);
+            jobDetail.getJobDataMap().put(Constant.GENERATION_KEY, String.valueOf(generation));
 
             SimpleTriggerFactoryBean factoryBean = new SimpleTriggerFactoryBean();
             factoryBean.setStartTime(new Date());
@@ -117,7 +130,8 @@ public class SimpleTriggerJobCreatorService {
             factoryBean.setMisfireInstruction(MISFIRE_INSTRUCTION_FIRE_NOW);
             factoryBean.afterPropertiesSet();
             try {
-                scheduler.scheduleJob(jobDetail, factoryBean.getObject());
+                // a not yet fired job of the previous run would start with a superseded generation
+                scheduler.scheduleJob(jobDetail, Set.of(factoryBean.getObject()), true);
             } catch (SchedulerException e) {
                 log.warn("Scheduler exception occurred with message: {}", e.getMessage());
             } catch (Exception e) {
@@ -127,6 +141,27 @@ public class SimpleTriggerJobCreatorService {
 
     }
 
+    /**
+     * Asks running jobs of the type to stop after their current page and waits for all of them
+     * at once, bounded by the drain timeout.
+     *
+     * @return generation of the jobs about to be scheduled
+     */
+    private long supersedeRunningJobs(Class<? extends Job> jobClass) {
+        String jobType = jobClass.getSimpleName();
+        try {
+            long generation = jobGenerationService.advance(jobType);
+            Instant start = Instant.now();
+            if (jobGenerationService.awaitDrained(jobType, generation - 1, drainTimeout)) {
+                log.info("Running {} jobs drained in {} ms", jobType, Duration.between(start, Instant.now()).toMillis());
+            }
+            return generation;
+        } catch (Exception e) {
+            log.error("Failed to supersede running {} jobs with exception ", jobType, e);
+            return jobGenerationService.current(jobType);
+        }
+    }
+
     private void deleteProductJobs(int attempt) {
         if (attempt == 0) return;
         try {
@@ -4,27 +4,25 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.crashteam.ke_data_scrapper.exception.CategoryRequestException;
 import dev.crashteam.ke_data_scrapper.exception.KeGqlRequestException;
+import dev.crashteam.ke_data_scrapper.model.KeRequestType;
 import dev.crashteam.ke_data_scrapper.model.ProxyRequestParams;
 import dev.crashteam.ke_data_scrapper.model.StyxProxyResult;
+import dev.crashteam.ke_data_scrapper.model.category.CategoryTree;
 import dev.crashteam.ke_data_scrapper.model.ke.*;
+import dev.crashteam.ke_data_scrapper.service.integration.decoder.KeGqlSearchDecoder;
+import dev.crashteam.ke_data_scrapper.service.integration.decoder.ProxyBodyDecoder;
+import dev.crashteam.ke_data_scrapper.service.limiter.KeRateLimiter;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.support.RetryTemplate;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -32,18 +30,13 @@ import java.util.stream.Collectors;
 public class KeService {
 
     private final StyxProxyService proxyService;
-    private final ThreadPoolTaskExecutor taskExecutor;
     private final RetryTemplate retryTemplate;
+    private final KeRateLimiter rateLimiter;
+    private final KeGqlSearchDecoder gqlSearchDecoder;
 
     @Value("${app.integration.kazan.token}")
     private String authToken;
 
-    @Value("${app.integration.timeout.from}")
-    private Long fromTimeout;
-
-    @Value("${app.integration.timeout.to}")
-    private Long timeout;
-
     private static final String ROOT_URL = "https://api.kazanexpress.ru/api";
 
     public List<KeCategory.Data> getRootCategories() {
@@ -53,19 +46,15 @@ public class KeService {
         ProxyRequestParams.ContextValue market = ProxyRequestParams.ContextValue.builder()
                 .key("market")
                 .value("KE").build();
-        Random randomTimeout = new Random();
         ProxyRequestParams requestParams = ProxyRequestParams.builder()
                 .url(ROOT_URL + "/main/root-categories")
                 .httpMethod(HttpMethod.GET.name())
                 .context(List.of(headers, market))
                 .build();
-        try {
-            Thread.sleep(randomTimeout.nextLong(fromTimeout, timeout));
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-        StyxProxyResult<KeCategory> proxyResult = proxyService.getProxyResult(requestParams, new ParameterizedTypeReference<>() {
+        rateLimiter.acquire(KeRequestType.CATEGORY);
+        StyxProxyResult<KeCategory> proxyResult = proxyService.getProxyResult(KeRequestType.CATEGORY, requestParams, new ParameterizedTypeReference<>() {
         });
+        rateLimiter.onResponse(KeRequestType.CATEGORY, proxyResult.getOriginalStatus());
         return proxyResult.getBody().getPayload();
     }
 
@@ -78,19 +67,16 @@ public class KeService {
         ProxyRequestParams.ContextValue market = ProxyRequestParams.ContextValue.builder()
                 .key("market")
                 .value("KE").build();
-        Random randomTimeout = new Random();
         ProxyRequestParams requestParams = ProxyRequestParams.builder()
                 .url(ROOT_URL + "/v2/product/%s".formatted(id))
                 .httpMethod(HttpMethod.GET.name())
                 .context(List.of(headers, market))
                 .build();
-        try {
-            Thread.sleep(randomTimeout.nextLong(fromTimeout, timeout));
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-        return proxyService.getProxyResult(requestParams, new ParameterizedTypeReference<StyxProxyResult<KeProduct>>() {
-        }).getBody();
+        rateLimiter.acquire(KeRequestType.PRODUCT);
+        StyxProxyResult<KeProduct> proxyResult = proxyService.getProxyResult(KeRequestType.PRODUCT, requestParams, new ParameterizedTypeReference<StyxProxyResult<KeProduct>>() {
+        });
+        rateLimiter.onResponse(KeRequestType.PRODUCT, proxyResult.getOriginalStatus());
+        return proxyResult.getBody();
     }
 
     public KeCategoryChild getCategoryData(Long id) {
@@ -101,60 +87,21 @@ public class KeService {
         ProxyRequestParams.ContextValue market = ProxyRequestParams.ContextValue.builder()
                 .key("market")
                 .value("KE").build();
-        Random randomTimeout = new Random();
         ProxyRequestParams requestParams = ProxyRequestParams.builder()
                 .url(ROOT_URL + "/category/v2/%s".formatted(id))
                 .httpMethod(HttpMethod.GET.name())
                 .context(List.of(headers, market))
                 .build();
-        try {
-            Thread.sleep(randomTimeout.nextLong(fromTimeout, timeout));
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-        return proxyService.getProxyResult(requestParams, new ParameterizedTypeReference<StyxProxyResult<KeCategoryChild>>() {
-        }).getBody();
-    }
-
-    public Map<Long, Set<Long>> getRootIdsMap() {
-        log.info("Collecting root category map");
-        Map<Long, Set<Long>> rootCategoriesMap = new HashMap<>();
-        List<KeCategory.Data> categories = getRootCategoriesRetryable();
-        for (KeCategory.Data category : categories) {
-            rootCategoriesMap.put(category.getId(), new HashSet<>());
-            for (KeCategory.Data child : category.getChildren()) {
-                rootCategoriesMap.get(category.getId()).add(child.getId());
-            }
-        }
-        return rootCategoriesMap;
-    }
-
-    @SneakyThrows
-    public Set<Long> getIds(boolean all) {
-        log.info("Collecting category id's...");
-        Set<Long> ids = new CopyOnWriteArraySet<>();
-        List<Callable<Void>> callables = new ArrayList<>();
-        List<KeCategory.Data> categories = getRootCategoriesRetryable();
-        for (KeCategory.Data data : categories) {
-            callables.add(extractIdsAsync(data, ids, all));
-        }
-        List<Future<Void>> futures = callables.stream()
-                .map(taskExecutor::submit)
-                .toList();
-        for (Future<Void> future : futures) {
-            try {
-                future.get();
-            } catch (ExecutionException e) {
-                throw Optional.ofNullable(e.getCause()).orElse(e);
-            }
-        }
-        log.info("Collected id's size - {}", ids.size());
-        return ids;
+        rateLimiter.acquire(KeRequestType.CATEGORY);
+        StyxProxyResult<KeCategoryChild> proxyResult = proxyService.getProxyResult(KeRequestType.CATEGORY, requestParams, new ParameterizedTypeReference<StyxProxyResult<KeCategoryChild>>() {
+        });
+        rateLimiter.onResponse(KeRequestType.CATEGORY, proxyResult.getOriginalStatus());
+        return proxyResult.getBody();
     }
 
     public KeGQLResponse getLightGqlSearchResponse(String categoryId, long offset, long limit) {
-        String query = "query getMakeSearch($queryInput: MakeSearchQueryInput!) { makeSearch(query: $queryInput) { items { catalogCard { __typename ...SkuGroupCardFragment ... on ProductCard { ...DefaultCardFragment __typename } } bidId __typename } total }}fragment SkuGroupCardFragment on SkuGroupCard { ...DefaultCardFragment characteristicValues { id value title characteristic { values { id title value __typename } title id __typename } __typename } __typename}fragment DefaultCardFragment on CatalogCard { productId __typename}";
-        return getGQLSearchResponse(categoryId, query, offset, limit);
+        String query = "query getMakeSearch($queryInput: MakeSearchQueryInput!) { makeSearch(query: $queryInput) { items { catalogCard { __typename ...SkuGroupCardFragment ... on ProductCard { ...DefaultCardFragment __typename } } bidId __typename } total }}fragment SkuGroupCardFragment on SkuGroupCard { ...DefaultCardFragment characteristicValues { id value title characteristic { values { id title value __typename } title id __typename } __typename } __typename}fragment DefaultCardFragment on CatalogCard { feedbackQuantity minFullPrice minSellPrice ordersQuantity productId rating __typename}";
+        return getGQLSearchResponse(categoryId, query, offset, limit, gqlSearchDecoder);
     }
 
     public KeGQLResponse getGQLSearchResponse(String categoryId, long offset, long limit) {
@@ -165,6 +112,11 @@ public class KeService {
     }
 
     public KeGQLResponse getGQLSearchResponse(String categoryId, String query, long offset, long limit) {
+        return getGQLSearchResponse(categoryId, query, offset, limit, null);
+    }
+
+    private KeGQLResponse getGQLSearchResponse(String categoryId, String query, long offset, long limit,
+                                               ProxyBodyDecoder<KeGQLResponse> decoder) {
         log.info("Starting gql catalog search with values: [categoryId - {}] , [offset - {}], [limit - {}]"
                 , categoryId, offset, limit);
         KeSearchQuery.Variables variables = KeSearchQuery.Variables.builder()
@@ -204,20 +156,22 @@ public class KeService {
         ProxyRequestParams.ContextValue market = ProxyRequestParams.ContextValue.builder()
                 .key("market")
                 .value("KE").build();
-        Random randomTimeout = new Random();
         ProxyRequestParams requestParams = ProxyRequestParams.builder()
                 .url("https://graphql.kazanexpress.ru/")
                 .httpMethod(HttpMethod.POST.name())
                 .context(List.of(headers, content, market))
                 .build();
-        try {
-            Thread.sleep(randomTimeout.nextLong(fromTimeout, timeout));
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+        rateLimiter.acquire(KeRequestType.GQL);
+        StyxProxyResult<KeGQLResponse> proxyResult = decoder != null
+                ? proxyService.getProxyResult(KeRequestType.GQL, requestParams, decoder)
+                : proxyService.getProxyResult(KeRequestType.GQL, requestParams, new ParameterizedTypeReference<StyxProxyResult<KeGQLResponse>>() {
+                });
+        KeGQLResponse response = proxyResult.getBody();
+        // 429s reported inside GQL errors are handled by the callers that inspect them
+        if (response == null || CollectionUtils.isEmpty(response.getErrors())) {
+            rateLimiter.onResponse(KeRequestType.GQL, proxyResult.getOriginalStatus());
         }
-        return proxyService
-                .getProxyResult(requestParams, new ParameterizedTypeReference<StyxProxyResult<KeGQLResponse>>() {
-                }).getBody();
+        return response;
     }
 
     public KeGQLResponse retryableGQLRequest(long categoryId, long offset, long limit) {
@@ -231,6 +185,7 @@ public class KeService {
                         return null;
                     } else if (error.getMessage().contains("429")) {
                         log.warn("Got 429 http status from request for category id {}", categoryId);
+                        rateLimiter.onThrottle(KeRequestType.GQL);
                         throw new KeGqlRequestException("Request ended with error message - %s".formatted(error.getMessage()));
                     }
                 }
@@ -239,103 +194,10 @@ public class KeService {
         });
     }
 
-    public Set<Long> getAllIds() {
-        Set<Long> ids = new HashSet<>();
-        List<KeCategory.Data> rootCategories = retryTemplate.execute((RetryCallback<List<KeCategory.Data>, CategoryRequestException>) retryContext -> {
-            var categoryData = getRootCategories();
-            if (categoryData == null) {
-                throw new CategoryRequestException();
-            }
-            return categoryData;
-        });
-        for (KeCategory.Data rootCategory : rootCategories) {
-            ids.addAll(getIdsFromRoot(rootCategory));
-        }
+    public CategoryTree getCategoryTree() {
+        List<KeCategory.Data> rootCategories = getRootCategoriesRetryable();
         KeGQLResponse gqlResponse = retryableGQLRequest(1, 0, 0);
-        List<KeGQLResponse.ResponseCategoryWrapper> categoryTree = gqlResponse.getData().getMakeSearch().getCategoryTree();
-        for (KeCategory.Data rootCategory : rootCategories) {
-            addIdsFromTree(rootCategory, categoryTree, ids);
-        }
-        log.info("Got {} ids", ids.size());
-        return ids;
-    }
-
-    private Set<Long> getIdsFromRoot(KeCategory.Data rootCategory) {
-        Set<Long> ids = new HashSet<>();
-        ids.add(rootCategory.getId());
-        for (KeCategory.Data child : rootCategory.getChildren()) {
-            ids.addAll(getIdsFromRoot(child));
-        }
-        return ids;
-    }
-
-    private void addIdsFromTree(
-            KeCategory.Data category,
-            List<KeGQLResponse.ResponseCategoryWrapper> categoryTree,
-            Set<Long> ids) {
-        ids.add(category.getId());
-        if (!CollectionUtils.isEmpty(category.getChildren())) {
-            for (KeCategory.Data child : category.getChildren()) {
-                addIdsFromTree(child, categoryTree, ids);
-            }
-        }
-        if (hasChildren(category.getId(), categoryTree)) {
-            Set<KeGQLResponse.ResponseCategoryWrapper> responseCategories = categoryTree.stream()
-                    .filter(it -> it.getCategory().getParent() != null
-                            && Objects.equals(it.getCategory().getParent().getId(), category.getId()))
-                    .collect(Collectors.toSet());
-            for (KeGQLResponse.ResponseCategoryWrapper responseCategory : responseCategories) {
-                addIdsFromChildrenCategory(responseCategory, categoryTree, ids);
-            }
-        }
-    }
-
-    private void addIdsFromChildrenCategory(
-            KeGQLResponse.ResponseCategoryWrapper responseCategory,
-            List<KeGQLResponse.ResponseCategoryWrapper> categoryTree,
-            Set<Long> ids) {
-        KeGQLResponse.ResponseCategory childCategory = responseCategory.getCategory();
-        ids.add(childCategory.getId());
-        if (hasChildren(childCategory.getId(), categoryTree)) {
-            Set<KeGQLResponse.ResponseCategoryWrapper> responseCategories = categoryTree.stream()
-                    .filter(it -> it.getCategory().getParent() != null
-                            && Objects.equals(it.getCategory().getParent().getId(), childCategory.getId()))
-                    .collect(Collectors.toSet());
-            for (KeGQLResponse.ResponseCategoryWrapper category : responseCategories) {
-                addIdsFromChildrenCategory(category, categoryTree, ids);
-            }
-        }
-    }
-
-    private boolean hasChildren(Long categoryId, List<KeGQLResponse.ResponseCategoryWrapper> categoryTree) {
-        return categoryTree.stream().anyMatch(it -> it.getCategory().getParent() != null
-                && Objects.equals(it.getCategory().getParent().getId(), categoryId));
-    }
-
-    private void extractIds(KeCategory.Data data, Set<Long> ids) {
-        ids.add(data.getId());
-        for (KeCategory.Data child : data.getChildren()) {
-            ids.add(child.getId());
-        }
-    }
-
-
-    private Callable<Void> extractIdsAsync(KeCategory.Data data, Set<Long> ids, boolean all) {
-        return () -> {
-            if (all) {
-                extractAllIds(data, ids);
-            } else {
-                extractIds(data, ids);
-            }
-            return null;
-        };
-    }
-
-    private void extractAllIds(KeCategory.Data data, Set<Long> ids) {
-        ids.add(data.getId());
-        for (KeCategory.Data child : data.getChildren()) {
-            extractAllIds(child, ids);
-        }
+        return CategoryTree.build(rootCategories, gqlResponse.getData().getMakeSearch().getCategoryTree());
     }
 
     private List<KeCategory.Data> getRootCategoriesRetryable() {
@@ -1,28 +1,150 @@
 package dev.crashteam.ke_data_scrapper.service.integration;
 
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.crashteam.ke_data_scrapper.exception.ProxyRequestException;
+import dev.crashteam.ke_data_scrapper.model.KeRequestType;
 import dev.crashteam.ke_data_scrapper.model.ProxyRequestParams;
+import dev.crashteam.ke_data_scrapper.model.StyxProxyResult;
+import dev.crashteam.ke_data_scrapper.service.integration.decoder.ProxyBodyDecoder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class StyxProxyService {
 
-    private final RestTemplate restTemplate;
+    private final HttpClient styxHttpClient;
+    private final ObjectMapper objectMapper;
 
     @Value("${app.integration.styx}")
     private String styxUrl;
 
-    public <T> T getProxyResult(ProxyRequestParams body, ParameterizedTypeReference<T> typeReference) {
-        HttpEntity<ProxyRequestParams> request = new HttpEntity<>(body);
-        return restTemplate.exchange(styxUrl + "/v2/proxy", HttpMethod.POST, request, typeReference).getBody();
+    @Value("${app.integration.styx-client.timeout.product}")
+    private Long productTimeout;
+
+    @Value("${app.integration.styx-client.timeout.gql}")
+    private Long gqlTimeout;
+
+    @Value("${app.integration.styx-client.timeout.category}")
+    private Long categoryTimeout;
+
+    public <T> T getProxyResult(KeRequestType requestType, ProxyRequestParams body, ParameterizedTypeReference<T> typeReference) {
+        return join(getProxyResultAsync(requestType, body, typeReference));
+    }
+
+    /**
+     * Reads the proxy result envelope with a streaming parser and hands its body to the decoder,
+     * so no intermediate object graph of the whole response is built.
+     */
+    public <T> StyxProxyResult<T> getProxyResult(KeRequestType requestType, ProxyRequestParams body, ProxyBodyDecoder<T> bodyDecoder) {
+        return join(getProxyResultAsync(requestType, body, bodyDecoder));
+    }
+
+    public <T> CompletableFuture<StyxProxyResult<T>> getProxyResultAsync(KeRequestType requestType,
+                                                                        ProxyRequestParams body,
+                                                                        ProxyBodyDecoder<T> bodyDecoder) {
+        return send(requestType, body, responseBody -> decodeResult(responseBody, bodyDecoder));
+    }
+
+    public <T> StyxProxyResult<T> decodeResult(byte[] responseBody, ProxyBodyDecoder<T> bodyDecoder) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(responseBody)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Styx proxy result is not an object");
+            }
+            StyxProxyResult<T> result = new StyxProxyResult<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "code" -> result.setCode(parser.getValueAsInt());
+                    case "originalStatus" -> result.setOriginalStatus(token == JsonToken.VALUE_NULL ? null : parser.getValueAsInt());
+                    case "url" -> result.setUrl(parser.getValueAsString());
+                    case "httpMethod" -> result.setHttpMethod(parser.getValueAsString());
+                    case "body" -> result.setBody(token == JsonToken.VALUE_NULL ? null : bodyDecoder.decode(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            return result;
+        }
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ProxyRequestException("Styx proxy request failed", e.getCause());
+        }
+    }
+
+    public <T> CompletableFuture<T> getProxyResultAsync(KeRequestType requestType,
+                                                        ProxyRequestParams body,
+                                                        ParameterizedTypeReference<T> typeReference) {
+        JavaType javaType = objectMapper.getTypeFactory().constructType(typeReference.getType());
+        return send(requestType, body, responseBody -> objectMapper.readValue(responseBody, javaType));
+    }
+
+    private <T> CompletableFuture<T> send(KeRequestType requestType, ProxyRequestParams body, BodyReader<T> bodyReader) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(styxUrl + "/v2/proxy"))
+                    .timeout(getTimeout(requestType))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new ProxyRequestException("Unable to serialize proxy request", e));
+        }
+        return styxHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> readBody(response, bodyReader));
+    }
+
+    private <T> T readBody(HttpResponse<byte[]> response, BodyReader<T> bodyReader) {
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new ProxyRequestException("Styx proxy responded with status - %s".formatted(response.statusCode()),
+                    new String(response.body(), StandardCharsets.UTF_8), response.statusCode());
+        }
+        try {
+            return bodyReader.read(response.body());
+        } catch (IOException e) {
+            throw new ProxyRequestException("Unable to read styx proxy response", e);
+        }
+    }
+
+    private Duration getTimeout(KeRequestType requestType) {
+        return Duration.ofMillis(switch (requestType) {
+            case PRODUCT -> productTimeout;
+            case GQL -> gqlTimeout;
+            case CATEGORY -> categoryTimeout;
+        });
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(byte[] body) throws IOException;
     }
 }
@@ -0,0 +1,192 @@
+package dev.crashteam.ke_data_scrapper.service.integration.decoder;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import dev.crashteam.ke_data_scrapper.model.ke.KeGQLResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming decoder of the light catalog search response. Reads only what the product pipeline and
+ * the page cache use: the total, the card counters and the ids of the characteristic values. The
+ * nested values of every characteristic, badges and type names are skipped without being materialized.
+ */
+@Component
+public class KeGqlSearchDecoder implements ProxyBodyDecoder<KeGQLResponse> {
+
+    @Override
+    public KeGQLResponse decode(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        KeGQLResponse response = new KeGQLResponse();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "data" -> response.setData(readData(parser));
+                case "errors" -> response.setErrors(readErrors(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return response;
+    }
+
+    private KeGQLResponse.ResponseData readData(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        KeGQLResponse.ResponseData data = new KeGQLResponse.ResponseData();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("makeSearch".equals(field)) {
+                data.setMakeSearch(readMakeSearch(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return data;
+    }
+
+    private KeGQLResponse.MakeSearch readMakeSearch(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        KeGQLResponse.MakeSearch makeSearch = new KeGQLResponse.MakeSearch();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "total" -> makeSearch.setTotal(readLong(parser));
+                case "items" -> makeSearch.setItems(readItems(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return makeSearch;
+    }
+
+    private List<KeGQLResponse.CatalogCardWrapper> readItems(JsonParser parser) throws IOException {
+        if (!startArray(parser)) {
+            return null;
+        }
+        List<KeGQLResponse.CatalogCardWrapper> items = new ArrayList<>(100);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (!startObject(parser)) {
+                continue;
+            }
+            KeGQLResponse.CatalogCardWrapper item = new KeGQLResponse.CatalogCardWrapper();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("catalogCard".equals(field)) {
+                    item.setCatalogCard(readCatalogCard(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    private KeGQLResponse.CatalogCard readCatalogCard(JsonParser parser) throws IOException {
+        if (!startObject(parser)) {
+            return null;
+        }
+        KeGQLResponse.CatalogCard card = new KeGQLResponse.CatalogCard();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> card.setId(readLong(parser));
+                case "productId" -> card.setProductId(readLong(parser));
+                case "feedbackQuantity" -> card.setFeedbackQuantity(readLong(parser));
+                case "ordersQuantity" -> card.setOrdersQuantity(readLong(parser));
+                case "minFullPrice" -> card.setMinFullPrice(readLong(parser));
+                case "minSellPrice" -> card.setMinSellPrice(readLong(parser));
+                case "rating" -> card.setRating(parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsDouble());
+                case "title" -> card.setTitle(parser.getValueAsString());
+                case "adult" -> card.setAdult(parser.getValueAsBoolean());
+                case "favorite" -> card.setFavorite(parser.getValueAsBoolean());
+                case "characteristicValues" -> card.setCharacteristicValues(readCharacteristicValues(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return card;
+    }
+
+    private List<KeGQLResponse.CharacteristicValue> readCharacteristicValues(JsonParser parser) throws IOException {
+        if (!startArray(parser)) {
+            return null;
+        }
+        List<KeGQLResponse.CharacteristicValue> values = new ArrayList<>(2);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (!startObject(parser)) {
+                continue;
+            }
+            KeGQLResponse.CharacteristicValue value = new KeGQLResponse.CharacteristicValue();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("id".equals(field)) {
+                    value.setId(readLong(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            values.add(value);
+        }
+        return values;
+    }
+
+    private List<KeGQLResponse.GQLError> readErrors(JsonParser parser) throws IOException {
+        if (!startArray(parser)) {
+            return null;
+        }
+        List<KeGQLResponse.GQLError> errors = new ArrayList<>(1);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (!startObject(parser)) {
+                continue;
+            }
+            KeGQLResponse.GQLError error = new KeGQLResponse.GQLError();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("message".equals(field)) {
+                    error.setMessage(parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            errors.add(error);
+        }
+        return errors;
+    }
+
+    private static Long readLong(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+    }
+
+    /**
+     * @return {@code true} if the current token starts an object, anything else is skipped
+     */
+    private static boolean startObject(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            return true;
+        }
+        parser.skipChildren();
+        return false;
+    }
+
+    private static boolean startArray(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.START_ARRAY) {
+            return true;
+        }
+        parser.skipChildren();
+        return false;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.crashteam.ke_data_scrapper.service.integration.decoder;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Decodes the body of a styx proxy result straight from the parser, positioned on its first token.
+ */
+@FunctionalInterface
+public interface ProxyBodyDecoder<T> {
+
+    T decode(JsonParser parser) throws IOException;
+}
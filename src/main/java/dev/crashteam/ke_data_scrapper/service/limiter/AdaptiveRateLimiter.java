@@ -0,0 +1,93 @@
+package dev.crashteam.ke_data_scrapper.service.limiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Paces callers to a permits-per-second rate that grows additively on success
+ * and shrinks multiplicatively on throttling (AIMD).
+ */
+public class AdaptiveRateLimiter {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final double minRate;
+    private final double maxRate;
+    private final double increaseStep;
+    private final double decreaseFactor;
+
+    private double rate;
+    private long nextFreeNanos;
+
+    public AdaptiveRateLimiter(double initialRate, double minRate, double maxRate,
+                               double increaseStep, double decreaseFactor) {
+        if (minRate <= 0 || maxRate < minRate) {
+            throw new IllegalArgumentException("Invalid rate bounds [%s, %s]".formatted(minRate, maxRate));
+        }
+        if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("Decrease factor must be in (0, 1), got %s".formatted(decreaseFactor));
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.increaseStep = increaseStep;
+        this.decreaseFactor = decreaseFactor;
+        this.rate = Math.min(maxRate, Math.max(minRate, initialRate));
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    /**
+     * Reserves the next free slot and sleeps outside the lock until it comes up.
+     *
+     * @return nanoseconds spent waiting for the permit
+     */
+    public long acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return waitNanos;
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            rate = Math.min(maxRate, rate + increaseStep);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onThrottle() {
+        lock.lock();
+        try {
+            rate = Math.max(minRate, rate * decreaseFactor);
+            nextFreeNanos = Math.max(nextFreeNanos, System.nanoTime() + intervalNanos());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getRate() {
+        lock.lock();
+        try {
+            return rate;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long reserve() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long slot = Math.max(nextFreeNanos, now);
+            nextFreeNanos = slot + intervalNanos();
+            return slot - now;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long intervalNanos() {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+}
@@ -0,0 +1,91 @@
+package dev.crashteam.ke_data_scrapper.service.limiter;
+
+import dev.crashteam.ke_data_scrapper.model.KeRequestType;
+import dev.crashteam.ke_data_scrapper.service.MetricService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KeRateLimiter {
+
+    private final MeterRegistry meterRegistry;
+    private final MetricService metricService;
+
+    private final Map<KeRequestType, AdaptiveRateLimiter> limiters = new EnumMap<>(KeRequestType.class);
+
+    @Value("${app.integration.rate-limit.product}")
+    private Double productRate;
+
+    @Value("${app.integration.rate-limit.gql}")
+    private Double gqlRate;
+
+    @Value("${app.integration.rate-limit.category}")
+    private Double categoryRate;
+
+    @Value("${app.integration.rate-limit.min}")
+    private Double minRate;
+
+    @Value("${app.integration.rate-limit.max}")
+    private Double maxRate;
+
+    @Value("${app.integration.rate-limit.increase-step}")
+    private Double increaseStep;
+
+    @Value("${app.integration.rate-limit.decrease-factor}")
+    private Double decreaseFactor;
+
+    @PostConstruct
+    public void init() {
+        limiters.put(KeRequestType.PRODUCT, createLimiter(productRate));
+        limiters.put(KeRequestType.GQL, createLimiter(gqlRate));
+        limiters.put(KeRequestType.CATEGORY, createLimiter(categoryRate));
+        limiters.forEach((requestType, limiter) -> Gauge.builder("mm_rate_limiter_rate", limiter, AdaptiveRateLimiter::getRate)
+                .tag("request_type", requestType.getValue())
+                .register(meterRegistry));
+    }
+
+    public void acquire(KeRequestType requestType) {
+        try {
+            long waitNanos = limiters.get(requestType).acquire();
+            metricService.recordPermitWait(TimeUnit.NANOSECONDS.toMillis(waitNanos), requestType.getValue());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void onSuccess(KeRequestType requestType) {
+        limiters.get(requestType).onSuccess();
+    }
+
+    public void onThrottle(KeRequestType requestType) {
+        AdaptiveRateLimiter limiter = limiters.get(requestType);
+        limiter.onThrottle();
+        metricService.incrementThrottled(requestType.getValue());
+        log.warn("Throttled on {} requests, rate lowered to {} rps", requestType.getValue(), limiter.getRate());
+    }
+
+    public void onResponse(KeRequestType requestType, Integer originalStatus) {
+        if (originalStatus == null) return;
+        if (originalStatus == 429) {
+            onThrottle(requestType);
+        } else if (originalStatus >= 200 && originalStatus < 300) {
+            onSuccess(requestType);
+        }
+    }
+
+    private AdaptiveRateLimiter createLimiter(Double initialRate) {
+        return new AdaptiveRateLimiter(initialRate, minRate, maxRate, increaseStep, decreaseFactor);
+    }
+}
@@ -0,0 +1,93 @@
+package dev.crashteam.ke_data_scrapper.service.position;
+
+import dev.crashteam.ke_data_scrapper.component.JobTaskExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Maps search result pages to position records. The position of a card is derived from where it is
+ * in the results, page offset plus index in the page, never from the order tasks finish in, so a page
+ * can be mapped by any number of workers and still yields the same records in page order.
+ */
+@Slf4j
+@Component
+public class PositionEngine {
+
+    private final JobTaskExecutor jobTaskExecutor;
+    private final int pageConcurrency;
+
+    public PositionEngine(JobTaskExecutor jobTaskExecutor,
+                          @Value("${app.job.position.page-concurrency}") int pageConcurrency) {
+        this.jobTaskExecutor = jobTaskExecutor;
+        this.pageConcurrency = pageConcurrency;
+    }
+
+    /**
+     * @return 1-based position of the card at {@code index} of the page starting at {@code pageOffset}
+     */
+    public static long positionOf(long pageOffset, int index) {
+        return pageOffset + index + 1;
+    }
+
+    /**
+     * Maps every item of the page with its position on up to {@code app.job.position.page-concurrency}
+     * workers. Failed items are logged and skipped, workers stop taking items once {@code running} is false.
+     *
+     * @return records of all items in page order
+     */
+    public <T, R> List<R> mapPage(long pageOffset, List<T> items, BooleanSupplier running,
+                                  PositionedTask<T, R> task) throws InterruptedException {
+        AtomicReferenceArray<List<R>> results = new AtomicReferenceArray<>(items.size());
+        AtomicInteger cursor = new AtomicInteger();
+        int workers = Math.min(pageConcurrency, items.size());
+        List<Callable<Void>> callables = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            callables.add(() -> {
+                int index;
+                while (running.getAsBoolean() && (index = cursor.getAndIncrement()) < items.size()) {
+                    try {
+                        results.set(index, task.map(items.get(index), positionOf(pageOffset, index)));
+                    } catch (Exception e) {
+                        log.error("Error while mapping position {} of page with offset - {}",
+                                positionOf(pageOffset, index), pageOffset, e);
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<Void> future : jobTaskExecutor.invokeAll(callables)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                log.error("Position worker of page with offset - {} failed", pageOffset, e.getCause());
+            }
+        }
+        List<R> records = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            List<R> result = results.get(index);
+            if (result != null) {
+                records.addAll(result);
+            }
+        }
+        return records;
+    }
+
+    @FunctionalInterface
+    public interface PositionedTask<T, R> {
+
+        /**
+         * @return records of the item, {@code null} if it has none
+         */
+        List<R> map(T item, long position) throws Exception;
+    }
+}
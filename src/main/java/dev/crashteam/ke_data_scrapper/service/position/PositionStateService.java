@@ -0,0 +1,126 @@
+package dev.crashteam.ke_data_scrapper.service.position;
+
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import dev.crashteam.ke_data_scrapper.service.MetricService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the last delivered position of every product of a category, so position jobs and the unified
+ * product pass publish only products that moved and a full snapshot of the category once per snapshot
+ * interval. Positions of a category are stored in one hash, product id to position.
+ */
+@Service
+@RequiredArgsConstructor
+public class PositionStateService {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MetricService metricService;
+
+    @Value("${app.job.position.delta.enabled}")
+    private boolean enabled;
+
+    @Value("${app.job.position.delta.full-snapshot-interval}")
+    private Duration fullSnapshotInterval;
+
+    /**
+     * @return {@code true} if every position of the category has to be published this run
+     */
+    public boolean isSnapshotDue(Long categoryId) {
+        if (!enabled) {
+            return true;
+        }
+        byte[] value = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.hashCommands().hGet(bytes(RedisKey.KE_POSITION_SNAPSHOT.getKey()), bytes(categoryId)));
+        return value == null || Long.parseLong(new String(value, StandardCharsets.UTF_8))
+                < Instant.now().minus(fullSnapshotInterval).getEpochSecond();
+    }
+
+    /**
+     * Records that every page of a full snapshot of the category was delivered.
+     */
+    public void snapshotPublished(Long categoryId) {
+        if (!enabled) {
+            return;
+        }
+        redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.hashCommands()
+                .hSet(bytes(RedisKey.KE_POSITION_SNAPSHOT.getKey()), bytes(categoryId), bytes(Instant.now().getEpochSecond())));
+    }
+
+    /**
+     * Compares positions of a page against the stored ones with one round-trip.
+     *
+     * @param positions position by product id
+     * @return ids of products that are new to the category or moved
+     */
+    public Set<Long> changed(Long categoryId, Map<Long, Long> positions) {
+        Set<Long> changed = new HashSet<>();
+        if (!enabled) {
+            changed.addAll(positions.keySet());
+            return changed;
+        }
+        if (positions.isEmpty()) {
+            return changed;
+        }
+        List<Long> productIds = new ArrayList<>(positions.keySet());
+        byte[][] fields = productIds.stream().map(PositionStateService::bytes).toArray(byte[][]::new);
+        List<byte[]> stored = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.hashCommands().hMGet(key(categoryId), fields));
+        int created = 0;
+        int moved = 0;
+        for (int i = 0; i < productIds.size(); i++) {
+            Long productId = productIds.get(i);
+            byte[] value = stored != null ? stored.get(i) : null;
+            if (value == null) {
+                created++;
+                changed.add(productId);
+            } else if (Long.parseLong(new String(value, StandardCharsets.UTF_8)) != positions.get(productId)) {
+                moved++;
+                changed.add(productId);
+            }
+        }
+        metricService.incrementPositionChange("new", created);
+        metricService.incrementPositionChange("moved", moved);
+        metricService.incrementPositionChange("unchanged", productIds.size() - created - moved);
+        return changed;
+    }
+
+    /**
+     * Stores positions once they were delivered to the stream. The hash of a category expires after
+     * two snapshot intervals without writes, which only happens once the category is no longer crawled.
+     */
+    public void delivered(Long categoryId, Map<Long, Long> positions) {
+        if (!enabled || positions.isEmpty()) {
+            return;
+        }
+        Map<byte[], byte[]> values = new HashMap<>(positions.size() * 2);
+        positions.forEach((productId, position) -> values.put(bytes(productId), bytes(position)));
+        byte[] key = key(categoryId);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hashCommands().hMSet(key, values);
+            connection.keyCommands().expire(key, fullSnapshotInterval.multipliedBy(2).toSeconds());
+            return null;
+        });
+    }
+
+    private static byte[] key(Long categoryId) {
+        return bytes(RedisKey.KE_POSITION_STATE.getKey().formatted(categoryId));
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+}
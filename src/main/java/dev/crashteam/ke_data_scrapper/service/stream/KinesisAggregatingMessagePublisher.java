@@ -0,0 +1,65 @@
+package dev.crashteam.ke_data_scrapper.service.stream;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import dev.crashteam.ke_data_scrapper.aws.AwsStreamClient;
+import dev.crashteam.ke_data_scrapper.aws.KinesisRecordAggregator;
+import dev.crashteam.ke_data_scrapper.aws.KinesisShardMap;
+import dev.crashteam.ke_data_scrapper.model.stream.AwsStreamMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KinesisAggregatingMessagePublisher implements MessagePublisher<AwsStreamMessage> {
+
+    private final KinesisBatchMessagePublisher kinesisBatchMessagePublisher;
+    private final AwsStreamClient awsStreamClient;
+    private final Map<String, LoadedShardMap> shardMaps = new ConcurrentHashMap<>();
+
+    @Value("${app.aws-stream.aggregation.max-bytes}")
+    private int maxBytes;
+
+    @Value("${app.aws-stream.aggregation.shard-map-refresh}")
+    private Duration shardMapRefresh;
+
+    @Override
+    public Integer publish(AwsStreamMessage message) {
+        List<PutRecordsRequestEntry> aggregated = KinesisRecordAggregator.aggregate(message.getMessage(), maxBytes,
+                shardMap(message.getTopic()));
+        kinesisBatchMessagePublisher.publish(new AwsStreamMessage(message.getTopic(), aggregated, message.getOnDelivered()));
+        return (int) message.getMessage().stream().filter(Objects::nonNull).count();
+    }
+
+    /**
+     * @return shard map of the stream refreshed every {@code shard-map-refresh} to follow resharding,
+     * {@code null} if it can't be listed, records are then aggregated per partition key only
+     */
+    private KinesisShardMap shardMap(String streamName) {
+        LoadedShardMap loaded = shardMaps.get(streamName);
+        long now = System.currentTimeMillis();
+        if (loaded != null && now - loaded.loadedAt() < shardMapRefresh.toMillis()) {
+            return loaded.shardMap();
+        }
+        try {
+            KinesisShardMap shardMap = new KinesisShardMap(awsStreamClient.listShards(streamName));
+            shardMaps.put(streamName, new LoadedShardMap(shardMap, now));
+            return shardMap;
+        } catch (Exception e) {
+            log.warn("Failed to list shards of stream - {}, aggregating records per partition key", streamName, e);
+            shardMaps.remove(streamName);
+            return null;
+        }
+    }
+
+    private record LoadedShardMap(KinesisShardMap shardMap, long loadedAt) {
+    }
+}
@@ -0,0 +1,199 @@
+package dev.crashteam.ke_data_scrapper.service.stream;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.amazonaws.services.kinesis.model.PutRecordsResult;
+import com.amazonaws.services.kinesis.model.PutRecordsResultEntry;
+import dev.crashteam.ke_data_scrapper.aws.AwsStreamClient;
+import dev.crashteam.ke_data_scrapper.model.stream.AwsStreamMessage;
+import dev.crashteam.ke_data_scrapper.service.MetricService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accumulates entries from all jobs per stream and sends them with PutRecords once a batch
+ * reaches the record or byte limit, or on the periodic flush. Only the records rejected by
+ * Kinesis are resent, with exponential backoff.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KinesisBatchMessagePublisher implements MessagePublisher<AwsStreamMessage> {
+
+    private final AwsStreamClient awsStreamClient;
+    private final MetricService metricService;
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+    @Value("${app.aws-stream.batch.max-records}")
+    private int maxRecords;
+
+    @Value("${app.aws-stream.batch.max-bytes}")
+    private long maxBytes;
+
+    @Value("${app.aws-stream.batch.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${app.aws-stream.batch.backoff}")
+    private long backoff;
+
+    @Override
+    public Integer publish(AwsStreamMessage message) {
+        Batch batch = batches.computeIfAbsent(message.getTopic(), it -> new Batch());
+        List<PutRecordsRequestEntry> entries = message.getMessage().stream().filter(Objects::nonNull).toList();
+        Delivery delivery = new Delivery(entries.size(), message.getOnDelivered());
+        for (PutRecordsRequestEntry entry : entries) {
+            List<PendingEntry> ready = batch.add(new PendingEntry(entry, delivery));
+            if (ready != null) {
+                send(message.getTopic(), ready);
+            }
+        }
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.aws-stream.batch.flush-interval}")
+    public void flush() {
+        batches.forEach((streamName, batch) -> {
+            List<PendingEntry> ready = batch.drain();
+            if (!ready.isEmpty()) {
+                send(streamName, ready);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private void send(String streamName, List<PendingEntry> entries) {
+        long start = System.currentTimeMillis();
+        List<PendingEntry> pending = entries;
+        for (int attempt = 1; attempt <= maxAttempts && !pending.isEmpty(); attempt++) {
+            if (attempt > 1) {
+                metricService.incrementKinesisFailedRecords("retried", pending.size());
+                if (!sleep(backoff << (attempt - 2))) break;
+            }
+            try {
+                PutRecordsResult result = awsStreamClient.sendMessage(streamName,
+                        pending.stream().map(PendingEntry::entry).toList());
+                pending = failedEntries(pending, result);
+                log.info("Posted [{}] of [{}] records to AWS stream - [{}], attempt - {}",
+                        entries.size() - pending.size(), entries.size(), streamName, attempt);
+            } catch (Exception e) {
+                log.warn("PutRecords to AWS stream - [{}] failed on attempt - {}", streamName, attempt, e);
+            }
+        }
+        if (!pending.isEmpty()) {
+            log.error("AWS ERROR, dropped [{}] records for stream - [{}] after {} attempts",
+                    pending.size(), streamName, maxAttempts);
+            metricService.incrementKinesisFailedRecords("dropped", pending.size());
+        }
+        String status = pending.isEmpty() ? "success" : pending.size() < entries.size() ? "partial" : "failed";
+        metricService.recordKinesisFlush(System.currentTimeMillis() - start, status);
+    }
+
+    private List<PendingEntry> failedEntries(List<PendingEntry> sent, PutRecordsResult result) {
+        if (result.getFailedRecordCount() == null || result.getFailedRecordCount() == 0) {
+            sent.forEach(it -> it.delivery().delivered());
+            return List.of();
+        }
+        List<PendingEntry> failed = new ArrayList<>(result.getFailedRecordCount());
+        List<PutRecordsResultEntry> records = result.getRecords();
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).getErrorCode() != null) {
+                failed.add(sent.get(i));
+            } else {
+                sent.get(i).delivery().delivered();
+            }
+        }
+        return failed;
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static long sizeOf(PutRecordsRequestEntry entry) {
+        return entry.getData().remaining() + entry.getPartitionKey().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private final class Batch {
+
+        private List<PendingEntry> entries = new ArrayList<>();
+        private long bytes;
+
+        synchronized List<PendingEntry> add(PendingEntry entry) {
+            long size = sizeOf(entry.entry());
+            List<PendingEntry> ready = null;
+            if (!entries.isEmpty() && bytes + size > maxBytes) {
+                ready = drain();
+            }
+            entries.add(entry);
+            bytes += size;
+            if (ready == null && entries.size() >= maxRecords) {
+                ready = drain();
+            }
+            return ready;
+        }
+
+        synchronized List<PendingEntry> drain() {
+            List<PendingEntry> drained = entries;
+            entries = new ArrayList<>();
+            bytes = 0;
+            return drained;
+        }
+    }
+
+    private record PendingEntry(PutRecordsRequestEntry entry, Delivery delivery) {
+    }
+
+    /**
+     * Outstanding entries of one published message, runs its callback once all of them were accepted.
+     * Dropped entries are never counted down, so a message with a dropped entry never completes.
+     */
+    private static final class Delivery {
+
+        private final AtomicInteger remaining;
+        private final Runnable onDelivered;
+
+        Delivery(int entries, Runnable onDelivered) {
+            this.remaining = new AtomicInteger(entries);
+            this.onDelivered = onDelivered;
+            if (entries == 0) {
+                complete();
+            }
+        }
+
+        void delivered() {
+            if (remaining.decrementAndGet() == 0) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            if (onDelivered == null) return;
+            try {
+                onDelivered.run();
+            } catch (Exception e) {
+                log.error("Delivery callback of AWS stream message failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dev.crashteam.ke_data_scrapper.service.work;
+
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Item total and last crawl time per category, kept between runs to prioritize the next one.
+ */
+@Service
+@RequiredArgsConstructor
+public class CategoryStatsService {
+
+    private static final byte[] STATS_KEY = RedisKey.KE_CATEGORY_STATS.getKey().getBytes(StandardCharsets.UTF_8);
+    private static final int VALUE_SIZE = 2 * Long.BYTES;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public Map<Long, CategoryStats> get(List<Long> categoryIds) {
+        Map<Long, CategoryStats> stats = new HashMap<>();
+        if (categoryIds.isEmpty()) {
+            return stats;
+        }
+        byte[][] fields = categoryIds.stream().map(CategoryStatsService::field).toArray(byte[][]::new);
+        List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.hashCommands().hMGet(STATS_KEY, fields));
+        if (values == null) {
+            return stats;
+        }
+        for (int i = 0; i < categoryIds.size(); i++) {
+            byte[] value = values.get(i);
+            if (value != null && value.length == VALUE_SIZE) {
+                ByteBuffer buffer = ByteBuffer.wrap(value);
+                stats.put(categoryIds.get(i), new CategoryStats(buffer.getLong(), Instant.ofEpochSecond(buffer.getLong())));
+            }
+        }
+        return stats;
+    }
+
+    public void record(Long categoryId, long total) {
+        byte[] value = ByteBuffer.allocate(VALUE_SIZE)
+                .putLong(total)
+                .putLong(Instant.now().getEpochSecond())
+                .array();
+        redisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.hashCommands().hSet(STATS_KEY, field(categoryId), value));
+    }
+
+    private static byte[] field(Long categoryId) {
+        return String.valueOf(categoryId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public record CategoryStats(long total, Instant crawledAt) {
+    }
+}
@@ -0,0 +1,182 @@
+package dev.crashteam.ke_data_scrapper.service.work;
+
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import dev.crashteam.ke_data_scrapper.model.work.WorkUnit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link WorkQueue} on Redis: queued units in a sorted set scored by priority, leases in a sorted set
+ * scored by expiry time, lease owners with the unit priority in a hash and split categories in another
+ * hash. Every transition is a Lua script, so a unit is held by at most one owner across the cluster.
+ */
+@Service
+@RequiredArgsConstructor
+public class RedisWorkQueue implements WorkQueue {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ACQUIRE = RedisScript.of("""
+            local member
+            local priority
+            local stolen = '0'
+            local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[2], 'LIMIT', 0, 1)
+            if #expired > 0 then
+              member = expired[1]
+              local holder = redis.call('HGET', KEYS[3], member)
+              local separator = holder and string.find(holder, '|', 1, true)
+              priority = separator and string.sub(holder, separator + 1) or '0'
+              stolen = '1'
+            else
+              local popped = redis.call('ZPOPMAX', KEYS[1])
+              if #popped == 0 then
+                return nil
+              end
+              member = popped[1]
+              priority = popped[2]
+            end
+            redis.call('ZADD', KEYS[2], ARGV[3], member)
+            redis.call('HSET', KEYS[3], member, ARGV[1] .. '|' .. priority)
+            redis.call('EXPIRE', KEYS[2], ARGV[4])
+            redis.call('EXPIRE', KEYS[3], ARGV[4])
+            return {member, priority, stolen}
+            """, List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> RENEW = RedisScript.of("""
+            local lost = {}
+            local prefix = ARGV[1] .. '|'
+            for i = 3, #ARGV do
+              local holder = redis.call('HGET', KEYS[2], ARGV[i])
+              if holder and string.sub(holder, 1, #prefix) == prefix then
+                redis.call('ZADD', KEYS[1], 'XX', ARGV[2], ARGV[i])
+              else
+                table.insert(lost, ARGV[i])
+              end
+            end
+            return lost
+            """, List.class);
+
+    private static final RedisScript<Long> COMPLETE = RedisScript.of("""
+            local holder = redis.call('HGET', KEYS[2], ARGV[2])
+            local prefix = ARGV[1] .. '|'
+            if not holder or string.sub(holder, 1, #prefix) ~= prefix then
+              return 0
+            end
+            redis.call('ZREM', KEYS[1], ARGV[2])
+            redis.call('HDEL', KEYS[2], ARGV[2])
+            if ARGV[4] then
+              redis.call('ZADD', KEYS[3], string.sub(holder, #prefix + 1), ARGV[4])
+              redis.call('EXPIRE', KEYS[3], ARGV[3])
+            end
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> ENQUEUE_SPLIT = RedisScript.of("""
+            if #ARGV < 3 then
+              return 1 - redis.call('HEXISTS', KEYS[2], ARGV[2])
+            end
+            if redis.call('HSETNX', KEYS[2], ARGV[2], '1') == 0 then
+              return 0
+            end
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            for i = 3, #ARGV, 2 do
+              redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${app.job.product.work.run-ttl}")
+    private long runTtl;
+
+    @Override
+    public void enqueue(String runId, Collection<WorkUnit> units) {
+        if (units.isEmpty()) {
+            return;
+        }
+        byte[] key = RedisKey.KE_WORK_QUEUE.getKey().formatted(runId).getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (WorkUnit unit : units) {
+                connection.zSetCommands().zAdd(key, unit.priority(), unit.encode().getBytes(StandardCharsets.UTF_8));
+            }
+            connection.keyCommands().expire(key, runTtl);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean enqueueSplit(String runId, WorkUnit head, Collection<WorkUnit> units) {
+        List<String> args = new ArrayList<>(units.size() * 2 + 2);
+        args.add(String.valueOf(runTtl));
+        args.add(String.valueOf(head.categoryId()));
+        for (WorkUnit unit : units) {
+            args.add(String.valueOf(unit.priority()));
+            args.add(unit.encode());
+        }
+        Long split = redisTemplate.execute(ENQUEUE_SPLIT, RedisSerializer.string(), RedisSerializer.string(),
+                List.of(RedisKey.KE_WORK_QUEUE.getKey().formatted(runId), RedisKey.KE_WORK_SPLIT.getKey().formatted(runId)),
+                args.toArray());
+        return split != null && split == 1;
+    }
+
+    @Override
+    public Acquired acquire(String runId, String owner, long now, long expiresAt) {
+        List<?> result = redisTemplate.execute(ACQUIRE, RedisSerializer.string(), RedisSerializer.string(), keys(runId),
+                owner, String.valueOf(now), String.valueOf(expiresAt), String.valueOf(runTtl));
+        if (result == null || result.isEmpty()) {
+            return null;
+        }
+        WorkUnit unit = WorkUnit.decode(result.get(0).toString(), Double.parseDouble(result.get(1).toString()));
+        return new Acquired(unit, "1".equals(result.get(2).toString()));
+    }
+
+    @Override
+    public Set<String> renew(String runId, String owner, Collection<WorkUnit> units, long expiresAt) {
+        List<String> args = new ArrayList<>(units.size() + 2);
+        args.add(owner);
+        args.add(String.valueOf(expiresAt));
+        units.forEach(unit -> args.add(unit.encode()));
+        List<String> keys = keys(runId);
+        List<?> lost = redisTemplate.execute(RENEW, RedisSerializer.string(), RedisSerializer.string(),
+                List.of(keys.get(1), keys.get(2)), args.toArray());
+        Set<String> lostUnits = new HashSet<>();
+        if (lost != null) {
+            lost.forEach(it -> lostUnits.add(it.toString()));
+        }
+        return lostUnits;
+    }
+
+    @Override
+    public void complete(String runId, String owner, WorkUnit unit) {
+        List<String> keys = keys(runId);
+        redisTemplate.execute(COMPLETE, RedisSerializer.string(), RedisSerializer.string(),
+                List.of(keys.get(1), keys.get(2), keys.get(0)), owner, unit.encode(), String.valueOf(runTtl));
+    }
+
+    @Override
+    public void release(String runId, String owner, WorkUnit unit, WorkUnit remaining) {
+        List<String> keys = keys(runId);
+        redisTemplate.execute(COMPLETE, RedisSerializer.string(), RedisSerializer.string(),
+                List.of(keys.get(1), keys.get(2), keys.get(0)), owner, unit.encode(), String.valueOf(runTtl), remaining.encode());
+    }
+
+    private static List<String> keys(String runId) {
+        return List.of(RedisKey.KE_WORK_QUEUE.getKey().formatted(runId),
+                RedisKey.KE_WORK_LEASE.getKey().formatted(runId),
+                RedisKey.KE_WORK_LEASE_OWNER.getKey().formatted(runId));
+    }
+}
@@ -0,0 +1,98 @@
+package dev.crashteam.ke_data_scrapper.service.work;
+
+import dev.crashteam.ke_data_scrapper.metric.gauge.RunEtaGauge;
+import dev.crashteam.ke_data_scrapper.model.RedisKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Cluster-wide item counters of a run. Planned items start from the totals of the previous run
+ * and are corrected once the first page of each category is read, the ETA extrapolates the
+ * throughput so far over the remaining items.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RunProgressService {
+
+    private static final byte[] PLANNED = "planned".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PROCESSED = "processed".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] STARTED = "started".getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RunEtaGauge runEtaGauge;
+
+    @Value("${app.job.product.work.run-ttl}")
+    private long runTtl;
+
+    public void start(String runId, long plannedItems) {
+        byte[] key = progressKey(runId);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hashCommands().hSet(key, STARTED, bytes(Instant.now().toEpochMilli()));
+            connection.hashCommands().hSet(key, PLANNED, bytes(plannedItems));
+            connection.hashCommands().hSet(key, PROCESSED, bytes(0));
+            connection.keyCommands().expire(key, runTtl);
+            return null;
+        });
+    }
+
+    public void addPlanned(String runId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        redisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.hashCommands().hIncrBy(progressKey(runId), PLANNED, delta));
+    }
+
+    public RunProgress addProcessed(String runId, long items) {
+        byte[] key = progressKey(runId);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.hashCommands().hIncrBy(key, PROCESSED, items);
+            connection.hashCommands().hMGet(key, PLANNED, STARTED);
+            return null;
+        }, RedisSerializer.byteArray());
+        @SuppressWarnings("unchecked")
+        List<byte[]> values = (List<byte[]>) results.get(1);
+        RunProgress progress = new RunProgress(parse(values.get(0)), (Long) results.get(0),
+                Instant.ofEpochMilli(parse(values.get(1))));
+        Duration eta = progress.eta(Instant.now());
+        runEtaGauge.set(eta.toSeconds());
+        log.info("Product run - {} processed {} of ~{} items, ETA - {} minutes",
+                runId, progress.processed(), progress.planned(), eta.toMinutes());
+        return progress;
+    }
+
+    private static byte[] progressKey(String runId) {
+        return RedisKey.KE_WORK_PROGRESS.getKey().formatted(runId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long parse(byte[] value) {
+        return value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : 0;
+    }
+
+    public record RunProgress(long planned, long processed, Instant startedAt) {
+
+        public Duration eta(Instant now) {
+            long remaining = planned - processed;
+            if (processed <= 0 || remaining <= 0) {
+                return Duration.ZERO;
+            }
+            long elapsed = Duration.between(startedAt, now).toMillis();
+            return Duration.ofMillis((long) ((double) elapsed / processed * remaining));
+        }
+    }
+}
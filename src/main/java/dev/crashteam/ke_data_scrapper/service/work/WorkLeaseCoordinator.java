@@ -0,0 +1,129 @@
+package dev.crashteam.ke_data_scrapper.service.work;
+
+import dev.crashteam.ke_data_scrapper.model.work.WorkUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the leases of this node. Leases are renewed by a heartbeat well before they expire; a lease
+ * that could not be renewed in time is taken over by another node and marked lost here, so the
+ * worker stops crawling the unit.
+ */
+@Slf4j
+@Service
+public class WorkLeaseCoordinator {
+
+    private final WorkQueue workQueue;
+    private final long leaseTtl;
+    private final Clock clock;
+    private final String owner;
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public WorkLeaseCoordinator(WorkQueue workQueue, @Value("${app.job.product.work.lease-ttl}") long leaseTtl) {
+        this(workQueue, leaseTtl, Clock.systemUTC(),
+                "%s:%s".formatted(ManagementFactory.getRuntimeMXBean().getName(), UUID.randomUUID()));
+    }
+
+    public WorkLeaseCoordinator(WorkQueue workQueue, long leaseTtl, Clock clock, String owner) {
+        this.workQueue = workQueue;
+        this.leaseTtl = leaseTtl;
+        this.clock = clock;
+        this.owner = owner;
+    }
+
+    /**
+     * @return lease on the next unit of the run or {@code null} if there is no work left
+     */
+    public Lease acquire(String runId) {
+        long now = clock.millis();
+        WorkQueue.Acquired acquired = workQueue.acquire(runId, owner, now, now + leaseTtl);
+        if (acquired == null) {
+            return null;
+        }
+        if (acquired.stolen()) {
+            log.info("Took over expired lease on work unit - {}", acquired.unit().encode());
+        }
+        Lease lease = new Lease(acquired.unit());
+        leases.add(lease);
+        return lease;
+    }
+
+    public void complete(Lease lease) {
+        leases.remove(lease);
+        if (!lease.isLost()) {
+            workQueue.complete(lease.getUnit().runId(), owner, lease.getUnit());
+        }
+    }
+
+    /**
+     * Gives the unit back to the queue with the part that was not crawled yet.
+     */
+    public void release(Lease lease, WorkUnit remaining) {
+        leases.remove(lease);
+        if (!lease.isLost()) {
+            workQueue.release(lease.getUnit().runId(), owner, lease.getUnit(), remaining);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.job.product.work.heartbeat-interval}")
+    public void heartbeat() {
+        if (leases.isEmpty()) {
+            return;
+        }
+        long expiresAt = clock.millis() + leaseTtl;
+        Map<String, List<Lease>> leasesByRun = leases.stream()
+                .collect(Collectors.groupingBy(lease -> lease.getUnit().runId()));
+        leasesByRun.forEach((runId, runLeases) -> {
+            try {
+                List<WorkUnit> units = new ArrayList<>(runLeases.size());
+                runLeases.forEach(lease -> units.add(lease.getUnit()));
+                Set<String> lost = workQueue.renew(runId, owner, units, expiresAt);
+                for (Lease lease : runLeases) {
+                    if (lost.contains(lease.getUnit().encode())) {
+                        log.warn("Lease on work unit - {} was lost", lease.getUnit().encode());
+                        lease.lost = true;
+                        leases.remove(lease);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Failed to renew {} work leases of run - {}", runLeases.size(), runId, e);
+            }
+        });
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public static final class Lease {
+
+        private final WorkUnit unit;
+        private volatile boolean lost;
+
+        private Lease(WorkUnit unit) {
+            this.unit = unit;
+        }
+
+        public WorkUnit getUnit() {
+            return unit;
+        }
+
+        public boolean isLost() {
+            return lost;
+        }
+    }
+}
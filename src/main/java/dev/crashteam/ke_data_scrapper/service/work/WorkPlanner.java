@@ -0,0 +1,84 @@
+package dev.crashteam.ke_data_scrapper.service.work;
+
+import dev.crashteam.ke_data_scrapper.model.work.WorkUnit;
+import dev.crashteam.ke_data_scrapper.service.CategorySnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plans a product run as one head unit per root and child category. Priority grows with the
+ * category total of the previous run and with the time since it was crawled, categories never
+ * crawled go first.
+ */
+@Service
+@RequiredArgsConstructor
+public class WorkPlanner {
+
+    private static final double UNKNOWN_PRIORITY = Double.MAX_VALUE;
+
+    private final CategorySnapshotService categorySnapshotService;
+    private final CategoryStatsService categoryStatsService;
+
+    @Value("${app.job.product.work.unit-size}")
+    private long unitSize;
+
+    public Plan plan(String runId) {
+        Set<Long> categoryIds = new LinkedHashSet<>();
+        categorySnapshotService.getTree().rootIdsMap().forEach((rootId, children) -> {
+            categoryIds.add(rootId);
+            categoryIds.addAll(children);
+        });
+        List<Long> ids = new ArrayList<>(categoryIds);
+        Map<Long, CategoryStatsService.CategoryStats> stats = categoryStatsService.get(ids);
+        Instant now = Instant.now();
+        long plannedItems = 0;
+        List<WorkUnit> units = new ArrayList<>(ids.size());
+        for (Long categoryId : ids) {
+            CategoryStatsService.CategoryStats categoryStats = stats.get(categoryId);
+            if (categoryStats != null) {
+                plannedItems += categoryStats.total();
+            }
+            units.add(WorkUnit.head(runId, categoryId, priority(categoryStats, now)));
+        }
+        units.sort(Comparator.comparingDouble(WorkUnit::priority).reversed());
+        return new Plan(units, plannedItems);
+    }
+
+    /**
+     * Splits everything past the first unit of a head into ranges of the unit size. The last range
+     * stays open, so items added during the run are still crawled.
+     */
+    public List<WorkUnit> split(WorkUnit head, long total) {
+        List<WorkUnit> units = new ArrayList<>();
+        for (long start = unitSize; start < total; start += unitSize) {
+            long end = start + unitSize < total ? start + unitSize : WorkUnit.UNBOUNDED;
+            units.add(new WorkUnit(head.runId(), head.categoryId(), start, end, head.priority()));
+        }
+        return units;
+    }
+
+    public long getUnitSize() {
+        return unitSize;
+    }
+
+    static double priority(CategoryStatsService.CategoryStats stats, Instant now) {
+        if (stats == null) {
+            return UNKNOWN_PRIORITY;
+        }
+        double ageDays = Duration.between(stats.crawledAt(), now).toMinutes() / 1440.0;
+        return Math.max(stats.total(), 1) * (1 + Math.max(ageDays, 0));
+    }
+
+    public record Plan(List<WorkUnit> units, long plannedItems) {
+    }
+}
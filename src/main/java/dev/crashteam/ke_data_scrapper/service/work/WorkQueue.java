@@ -0,0 +1,44 @@
+package dev.crashteam.ke_data_scrapper.service.work;
+
+import dev.crashteam.ke_data_scrapper.model.work.WorkUnit;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Priority queue of work units shared by all nodes. A unit taken from the queue is leased to its
+ * owner until {@code expiresAt}; leases that were not renewed in time are taken over by the next
+ * owner asking for work, so units of a dead node are not lost.
+ */
+public interface WorkQueue {
+
+    void enqueue(String runId, Collection<WorkUnit> units);
+
+    /**
+     * Queues the units split off a head unit, once per category and run. Without units the category
+     * is only checked, not marked as split.
+     *
+     * @return {@code false} if the head of the category was split before, nothing is queued then
+     */
+    boolean enqueueSplit(String runId, WorkUnit head, Collection<WorkUnit> units);
+
+    /**
+     * @return expired lease of another owner or the highest priority queued unit, {@code null} if there is none
+     */
+    Acquired acquire(String runId, String owner, long now, long expiresAt);
+
+    /**
+     * @return encoded units this owner does not hold anymore
+     */
+    Set<String> renew(String runId, String owner, Collection<WorkUnit> units, long expiresAt);
+
+    void complete(String runId, String owner, WorkUnit unit);
+
+    /**
+     * Gives the lease back and queues {@code remaining} with the priority of the leased unit.
+     */
+    void release(String runId, String owner, WorkUnit unit, WorkUnit remaining);
+
+    record Acquired(WorkUnit unit, boolean stolen) {
+    }
+}
@@ -0,0 +1,23 @@
+package dev.crashteam.ke_data_scrapper.service.work;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkQueueScheduler {
+
+    private final WorkPlanner workPlanner;
+    private final WorkQueue workQueue;
+    private final RunProgressService runProgressService;
+
+    public void schedule(String runId) {
+        WorkPlanner.Plan plan = workPlanner.plan(runId);
+        runProgressService.start(runId, plan.plannedItems());
+        workQueue.enqueue(runId, plan.units());
+        log.info("Queued {} category work units for product run - {}, ~{} items planned",
+                plan.units().size(), runId, plan.plannedItems());
+    }
+}
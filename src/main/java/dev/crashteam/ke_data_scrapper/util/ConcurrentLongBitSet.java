@@ -0,0 +1,69 @@
+package dev.crashteam.ke_data_scrapper.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free bit set for non-negative ids below 2^32. Memory is allocated in 8 KB chunks
+ * on first write, so sparse id ranges stay cheap.
+ */
+public class ConcurrentLongBitSet {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int WORDS_PER_CHUNK = 1 << (CHUNK_BITS - 6);
+    private static final int CHUNK_COUNT = 1 << (32 - CHUNK_BITS);
+    public static final long MAX_VALUE = (1L << 32) - 1;
+
+    private final AtomicReferenceArray<AtomicLongArray> chunks = new AtomicReferenceArray<>(CHUNK_COUNT);
+
+    /**
+     * @return {@code true} if the value was not present before
+     */
+    public boolean add(long value) {
+        checkRange(value);
+        AtomicLongArray chunk = chunk((int) (value >>> CHUNK_BITS));
+        int word = (int) (value >>> 6) & (WORDS_PER_CHUNK - 1);
+        long mask = 1L << value;
+        while (true) {
+            long current = chunk.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (chunk.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    public boolean contains(long value) {
+        checkRange(value);
+        AtomicLongArray chunk = chunks.get((int) (value >>> CHUNK_BITS));
+        if (chunk == null) {
+            return false;
+        }
+        int word = (int) (value >>> 6) & (WORDS_PER_CHUNK - 1);
+        return (chunk.get(word) & (1L << value)) != 0;
+    }
+
+    public static boolean inRange(long value) {
+        return value >= 0 && value <= MAX_VALUE;
+    }
+
+    private AtomicLongArray chunk(int index) {
+        AtomicLongArray chunk = chunks.get(index);
+        if (chunk == null) {
+            AtomicLongArray created = new AtomicLongArray(WORDS_PER_CHUNK);
+            chunk = chunks.compareAndExchange(index, null, created);
+            if (chunk == null) {
+                chunk = created;
+            }
+        }
+        return chunk;
+    }
+
+    private static void checkRange(long value) {
+        if (!inRange(value)) {
+            throw new IllegalArgumentException("Value out of range - " + value);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package dev.crashteam.ke_data_scrapper;
+
+import dev.crashteam.ke_data_scrapper.model.cache.CachedProductData;
+import dev.crashteam.ke_data_scrapper.model.cache.GraphQlCacheData;
+import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class CachePayloads {
+
+    public static CachedProductData product(long productId) {
+        Random random = new Random(productId);
+        CachedProductData productData = new CachedProductData();
+        List<KeProduct.CharacteristicsData> characteristics = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            KeProduct.CharacteristicsData characteristic = new KeProduct.CharacteristicsData();
+            characteristic.setId(random.nextLong(1, 1_000_000));
+            characteristic.setTitle(i == 0 ? "Цвет" : "Размер");
+            List<KeProduct.Characteristic> values = new ArrayList<>();
+            for (int j = 0; j < 6; j++) {
+                KeProduct.Characteristic value = new KeProduct.Characteristic();
+                value.setId(random.nextLong(1, 10_000_000));
+                value.setTitle(i == 0 ? "Тёмно-синий " + j : String.valueOf(40 + j));
+                value.setValue(i == 0 ? "#1c2a4" + j : String.valueOf(40 + j));
+                values.add(value);
+            }
+            characteristic.setValues(values);
+            characteristics.add(characteristic);
+        }
+        productData.setCharacteristics(characteristics);
+        List<KeProduct.SkuData> skuList = new ArrayList<>();
+        for (int i = 0; i < 36; i++) {
+            KeProduct.SkuData sku = new KeProduct.SkuData();
+            sku.setId(productId * 100 + i);
+            KeProduct.ScuCharacteristic color = new KeProduct.ScuCharacteristic();
+            color.setCharIndex(0);
+            color.setValueIndex(i / 6);
+            KeProduct.ScuCharacteristic size = new KeProduct.ScuCharacteristic();
+            size.setCharIndex(1);
+            size.setValueIndex(i % 6);
+            sku.setCharacteristics(List.of(color, size));
+            sku.setAvailableAmount(random.nextLong(0, 500));
+            sku.setFullPrice(String.valueOf(random.nextInt(1000, 500000)));
+            sku.setPurchasePrice(String.valueOf(random.nextInt(1000, 500000)));
+            sku.setCharityProfit("0");
+            sku.setBarcode(String.valueOf(4_600_000_000_000L + random.nextInt(1_000_000)));
+            sku.setSellPrice(random.nextLong(1000, 500000));
+            KeProduct.Restriction restriction = new KeProduct.Restriction();
+            restriction.setRestricted(false);
+            restriction.setRestrictedAmount(0L);
+            restriction.setBoughtAmount(0L);
+            sku.setRestriction(restriction);
+            skuList.add(sku);
+        }
+        productData.setSkuList(skuList);
+        return productData;
+    }
+
+    public static GraphQlCacheData page(long firstProductId) {
+        GraphQlCacheData graphQlCacheData = new GraphQlCacheData();
+        GraphQlCacheData.ResponseData responseData = new GraphQlCacheData.ResponseData();
+        GraphQlCacheData.MakeSearch makeSearch = new GraphQlCacheData.MakeSearch();
+        List<GraphQlCacheData.CatalogCardWrapper> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            GraphQlCacheData.CatalogCard catalogCard = new GraphQlCacheData.CatalogCard();
+            catalogCard.setProductId(firstProductId + i * 17L);
+            GraphQlCacheData.CharacteristicValue characteristicValue = new GraphQlCacheData.CharacteristicValue();
+            characteristicValue.setId(firstProductId * 10 + i);
+            catalogCard.setCharacteristicValues(i % 3 == 0 ? List.of() : List.of(characteristicValue));
+            GraphQlCacheData.CatalogCardWrapper catalogCardWrapper = new GraphQlCacheData.CatalogCardWrapper();
+            catalogCardWrapper.setCatalogCard(catalogCard);
+            items.add(catalogCardWrapper);
+        }
+        makeSearch.setTotal(48_211L);
+        makeSearch.setItems(items);
+        responseData.setMakeSearch(makeSearch);
+        graphQlCacheData.setData(responseData);
+        return graphQlCacheData;
+    }
+}
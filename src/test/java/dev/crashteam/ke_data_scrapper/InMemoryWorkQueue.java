@@ -0,0 +1,115 @@
+package dev.crashteam.ke_data_scrapper;
+
+import dev.crashteam.ke_data_scrapper.model.work.WorkUnit;
+import dev.crashteam.ke_data_scrapper.service.work.WorkQueue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local stand-in for the Redis work queue with the same lease semantics as its scripts.
+ */
+public class InMemoryWorkQueue implements WorkQueue {
+
+    private final Map<String, Map<String, Double>> queues = new HashMap<>();
+    private final Map<String, Map<String, Holder>> leases = new HashMap<>();
+    private final Map<String, Set<Long>> splits = new HashMap<>();
+
+    @Override
+    public synchronized void enqueue(String runId, Collection<WorkUnit> units) {
+        units.forEach(unit -> queue(runId).put(unit.encode(), unit.priority()));
+    }
+
+    @Override
+    public synchronized boolean enqueueSplit(String runId, WorkUnit head, Collection<WorkUnit> units) {
+        Set<Long> split = splits.computeIfAbsent(runId, it -> new HashSet<>());
+        if (units.isEmpty()) {
+            return !split.contains(head.categoryId());
+        }
+        if (!split.add(head.categoryId())) {
+            return false;
+        }
+        enqueue(runId, units);
+        return true;
+    }
+
+    @Override
+    public synchronized Acquired acquire(String runId, String owner, long now, long expiresAt) {
+        Map<String, Holder> runLeases = leases(runId);
+        String member = runLeases.entrySet().stream()
+                .filter(it -> it.getValue().expiresAt() <= now)
+                .min(Map.Entry.comparingByValue((a, b) -> Long.compare(a.expiresAt(), b.expiresAt())))
+                .map(Map.Entry::getKey)
+                .orElse(null);
+        boolean stolen = member != null;
+        double priority;
+        if (stolen) {
+            priority = runLeases.get(member).priority();
+        } else {
+            member = queue(runId).entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse(null);
+            if (member == null) {
+                return null;
+            }
+            priority = queue(runId).remove(member);
+        }
+        runLeases.put(member, new Holder(owner, priority, expiresAt));
+        return new Acquired(WorkUnit.decode(member, priority), stolen);
+    }
+
+    @Override
+    public synchronized Set<String> renew(String runId, String owner, Collection<WorkUnit> units, long expiresAt) {
+        Set<String> lost = new HashSet<>();
+        Map<String, Holder> runLeases = leases(runId);
+        for (WorkUnit unit : units) {
+            Holder holder = runLeases.get(unit.encode());
+            if (holder != null && holder.owner().equals(owner)) {
+                runLeases.put(unit.encode(), new Holder(owner, holder.priority(), expiresAt));
+            } else {
+                lost.add(unit.encode());
+            }
+        }
+        return lost;
+    }
+
+    @Override
+    public synchronized void complete(String runId, String owner, WorkUnit unit) {
+        Holder holder = leases(runId).get(unit.encode());
+        if (holder != null && holder.owner().equals(owner)) {
+            leases(runId).remove(unit.encode());
+        }
+    }
+
+    @Override
+    public synchronized void release(String runId, String owner, WorkUnit unit, WorkUnit remaining) {
+        Holder holder = leases(runId).get(unit.encode());
+        if (holder != null && holder.owner().equals(owner)) {
+            leases(runId).remove(unit.encode());
+            queue(runId).put(remaining.encode(), holder.priority());
+        }
+    }
+
+    public synchronized int queued(String runId) {
+        return queue(runId).size();
+    }
+
+    public synchronized int leased(String runId) {
+        return leases(runId).size();
+    }
+
+    private Map<String, Double> queue(String runId) {
+        return queues.computeIfAbsent(runId, it -> new HashMap<>());
+    }
+
+    private Map<String, Holder> leases(String runId) {
+        return leases.computeIfAbsent(runId, it -> new HashMap<>());
+    }
+
+    private record Holder(String owner, double priority, long expiresAt) {
+    }
+}
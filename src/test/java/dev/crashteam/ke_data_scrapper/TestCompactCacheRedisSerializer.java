@@ -0,0 +1,45 @@
+package dev.crashteam.ke_data_scrapper;
+
+import dev.crashteam.ke_data_scrapper.component.GzipRedisSerializer;
+import dev.crashteam.ke_data_scrapper.component.cache.CompactCacheRedisSerializer;
+import dev.crashteam.ke_data_scrapper.model.cache.CachedProductData;
+import dev.crashteam.ke_data_scrapper.model.cache.GraphQlCacheData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+public class TestCompactCacheRedisSerializer {
+
+    @Test
+    public void testRoundTrip() {
+        for (CompactCacheRedisSerializer.Compression compression : CompactCacheRedisSerializer.Compression.values()) {
+            CompactCacheRedisSerializer serializer = new CompactCacheRedisSerializer(compression);
+            CachedProductData product = CachePayloads.product(42L);
+            GraphQlCacheData page = CachePayloads.page(1000L);
+
+            Assertions.assertEquals(product, serializer.deserialize(serializer.serialize(product)));
+            Assertions.assertEquals(page, serializer.deserialize(serializer.serialize(page)));
+            Assertions.assertEquals(new CachedProductData(), serializer.deserialize(serializer.serialize(new CachedProductData())));
+        }
+    }
+
+    @Test
+    public void testReadsGzipEntries() {
+        GzipRedisSerializer gzipRedisSerializer = new GzipRedisSerializer();
+        CompactCacheRedisSerializer serializer = new CompactCacheRedisSerializer(CompactCacheRedisSerializer.Compression.LZ4);
+        CachedProductData product = CachePayloads.product(42L);
+
+        Assertions.assertEquals(product, serializer.deserialize(gzipRedisSerializer.serialize(product)));
+    }
+
+    @Test
+    public void testRejectsUnknownCompression() {
+        CompactCacheRedisSerializer serializer = new CompactCacheRedisSerializer(CompactCacheRedisSerializer.Compression.NONE);
+        byte[] bytes = serializer.serialize(CachePayloads.product(42L));
+        bytes[3] = (byte) CompactCacheRedisSerializer.Compression.values().length;
+
+        Assertions.assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+        bytes[3] = -1;
+        Assertions.assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+    }
+}
@@ -0,0 +1,49 @@
+package dev.crashteam.ke_data_scrapper;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import dev.crashteam.ke.scrapper.data.v1.KeScrapperEvent;
+import dev.crashteam.ke_data_scrapper.aws.KinesisEventEncoder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class TestKinesisEventEncoder {
+
+    @Test
+    public void testEntriesDecodeBackAcrossSlabs() throws Exception {
+        Instant scrapTime = Instant.now();
+        List<PutRecordsRequestEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            KeScrapperEvent.Builder event = KinesisEventEncoder.newEvent(scrapTime);
+            event.getEventPayloadBuilder().getKeProductPositionChangeBuilder()
+                    .setPosition(i + 1)
+                    .setProductId(1000L + i / 3)
+                    .setSkuId(50000L + i)
+                    .setCategoryId(10L);
+            entries.add(KinesisEventEncoder.toEntry(event, String.valueOf(1000L + i / 3)));
+        }
+
+        String previousId = null;
+        for (int i = 0; i < entries.size(); i++) {
+            PutRecordsRequestEntry entry = entries.get(i);
+            Assertions.assertEquals(String.valueOf(1000L + i / 3), entry.getPartitionKey());
+            KeScrapperEvent event = KeScrapperEvent.parseFrom(entry.getData().duplicate());
+            Assertions.assertEquals(i + 1, event.getEventPayload().getKeProductPositionChange().getPosition());
+            Assertions.assertEquals(50000L + i, event.getEventPayload().getKeProductPositionChange().getSkuId());
+            Assertions.assertEquals(scrapTime.getEpochSecond(), event.getScrapTime().getSeconds());
+            Assertions.assertEquals(scrapTime.getNano(), event.getScrapTime().getNanos());
+
+            UUID eventId = UUID.fromString(event.getEventId());
+            Assertions.assertEquals(7, eventId.version());
+            Assertions.assertEquals(2, eventId.variant());
+            if (previousId != null) {
+                Assertions.assertTrue(previousId.compareTo(event.getEventId()) < 0);
+            }
+            previousId = event.getEventId();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package dev.crashteam.ke_data_scrapper;
+
+import com.amazonaws.services.kinesis.clientlibrary.types.UserRecord;
+import com.amazonaws.services.kinesis.model.HashKeyRange;
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.amazonaws.services.kinesis.model.Record;
+import com.amazonaws.services.kinesis.model.SequenceNumberRange;
+import com.amazonaws.services.kinesis.model.Shard;
+import dev.crashteam.ke.scrapper.data.v1.KeProductCategoryPositionChange;
+import dev.crashteam.ke.scrapper.data.v1.KeScrapperEvent;
+import dev.crashteam.ke_data_scrapper.aws.KinesisRecordAggregator;
+import dev.crashteam.ke_data_scrapper.aws.KinesisShardMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class TestKinesisRecordAggregator {
+
+    @Test
+    public void testAggregatedRecordsDecodeBackToEvents() throws Exception {
+        List<KeScrapperEvent> events = new ArrayList<>();
+        List<PutRecordsRequestEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            KeScrapperEvent event = KeScrapperEvent.newBuilder()
+                    .setEventId(UUID.randomUUID().toString())
+                    .setEventPayload(KeScrapperEvent.EventPayload.newBuilder()
+                            .setKeProductPositionChange(KeProductCategoryPositionChange.newBuilder()
+                                    .setPosition(i + 1)
+                                    .setProductId(1000L + i / 3)
+                                    .setSkuId(50000L + i)
+                                    .setCategoryId(10L)
+                                    .build())
+                            .build())
+                    .build();
+            events.add(event);
+            PutRecordsRequestEntry entry = new PutRecordsRequestEntry();
+            entry.setPartitionKey(String.valueOf(1000L + i / 3));
+            entry.setData(ByteBuffer.wrap(event.toByteArray()));
+            entries.add(entry);
+        }
+
+        int maxBytes = 64 * 1024;
+        List<PutRecordsRequestEntry> aggregated = KinesisRecordAggregator.aggregate(entries, maxBytes, new KinesisShardMap(shards(1)));
+        Assertions.assertTrue(aggregated.size() > 1);
+        Assertions.assertTrue(aggregated.size() < entries.size() / 100);
+
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < aggregated.size(); i++) {
+            PutRecordsRequestEntry entry = aggregated.get(i);
+            Assertions.assertTrue(entry.getData().remaining() <= maxBytes);
+            records.add(new Record()
+                    .withSequenceNumber(String.valueOf(i))
+                    .withPartitionKey(entry.getPartitionKey())
+                    .withData(entry.getData()));
+        }
+        List<UserRecord> userRecords = UserRecord.deaggregate(records);
+
+        Assertions.assertEquals(events.size(), userRecords.size());
+        for (int i = 0; i < events.size(); i++) {
+            UserRecord userRecord = userRecords.get(i);
+            Assertions.assertTrue(userRecord.isAggregated());
+            Assertions.assertEquals(entries.get(i).getPartitionKey(), userRecord.getPartitionKey());
+            Assertions.assertEquals(events.get(i), KeScrapperEvent.parseFrom(userRecord.getData()));
+        }
+    }
+
+    @Test
+    public void testAggregatedRecordsKeepAllUserRecordsOfTheirShard() throws Exception {
+        List<Shard> shards = shards(4);
+        List<PutRecordsRequestEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            KeScrapperEvent event = KeScrapperEvent.newBuilder()
+                    .setEventId(UUID.randomUUID().toString())
+                    .setEventPayload(KeScrapperEvent.EventPayload.newBuilder()
+                            .setKeProductPositionChange(KeProductCategoryPositionChange.newBuilder()
+                                    .setPosition(i + 1)
+                                    .setProductId(1000L + i / 2)
+                                    .setSkuId(50000L + i)
+                                    .setCategoryId(10L)
+                                    .build())
+                            .build())
+                    .build();
+            PutRecordsRequestEntry entry = new PutRecordsRequestEntry();
+            entry.setPartitionKey(String.valueOf(1000L + i / 2));
+            entry.setData(ByteBuffer.wrap(event.toByteArray()));
+            entries.add(entry);
+        }
+
+        List<PutRecordsRequestEntry> aggregated = KinesisRecordAggregator.aggregate(entries, 64 * 1024, new KinesisShardMap(shards));
+        Assertions.assertTrue(aggregated.size() >= shards.size());
+
+        int delivered = 0;
+        for (int i = 0; i < aggregated.size(); i++) {
+            PutRecordsRequestEntry entry = aggregated.get(i);
+            // the aggregated record lands on the shard of its partition key, KCL keeps only user records of that shard
+            BigInteger hash = KinesisShardMap.hashOf(entry.getPartitionKey());
+            Shard shard = shards.stream()
+                    .filter(it -> hash.compareTo(new BigInteger(it.getHashKeyRange().getStartingHashKey())) >= 0
+                            && hash.compareTo(new BigInteger(it.getHashKeyRange().getEndingHashKey())) <= 0)
+                    .findFirst()
+                    .orElseThrow();
+            Record record = new Record()
+                    .withSequenceNumber(String.valueOf(i))
+                    .withPartitionKey(entry.getPartitionKey())
+                    .withData(entry.getData());
+            delivered += UserRecord.deaggregate(List.of(record),
+                    new BigInteger(shard.getHashKeyRange().getStartingHashKey()),
+                    new BigInteger(shard.getHashKeyRange().getEndingHashKey())).size();
+        }
+        Assertions.assertEquals(entries.size(), delivered);
+    }
+
+    private static List<Shard> shards(int count) {
+        BigInteger max = BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+        BigInteger width = BigInteger.ONE.shiftLeft(128).divide(BigInteger.valueOf(count));
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            BigInteger start = width.multiply(BigInteger.valueOf(i));
+            BigInteger end = i == count - 1 ? max : start.add(width).subtract(BigInteger.ONE);
+            shards.add(new Shard()
+                    .withShardId("shardId-%012d".formatted(i))
+                    .withHashKeyRange(new HashKeyRange()
+                            .withStartingHashKey(start.toString())
+                            .withEndingHashKey(end.toString()))
+                    .withSequenceNumberRange(new SequenceNumberRange().withStartingSequenceNumber("0")));
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,96 @@
+package dev.crashteam.ke_data_scrapper;
+
+import dev.crashteam.ke_data_scrapper.component.JobTaskExecutor;
+import dev.crashteam.ke_data_scrapper.service.position.PositionEngine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class TestPositionEngine {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int PAGES = 40;
+
+    @Test
+    public void testPositionsFollowPageOrderOnPlatformThreads() throws Exception {
+        assertDeterministic(JobTaskExecutor.ExecutionMode.PLATFORM, 64);
+    }
+
+    @Test
+    public void testPositionsFollowPageOrderOnVirtualThreads() throws Exception {
+        assertDeterministic(JobTaskExecutor.ExecutionMode.VIRTUAL, 100);
+    }
+
+    @Test
+    public void testFailedItemsAreSkipped() throws Exception {
+        JobTaskExecutor executor = new JobTaskExecutor(JobTaskExecutor.ExecutionMode.PLATFORM, 8);
+        try {
+            PositionEngine engine = new PositionEngine(executor, 8);
+            List<Long> records = engine.mapPage(200, page(200), () -> true, (item, position) -> {
+                if (item % 3 == 0) throw new IllegalStateException("item " + item);
+                return item % 3 == 1 ? null : List.of(position);
+            });
+            Assertions.assertEquals(33, records.size());
+            for (int i = 0; i < records.size(); i++) {
+                Assertions.assertEquals(200 + 3 * i + 3, records.get(i));
+            }
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void testStopsTakingItemsWhenNotRunning() throws Exception {
+        JobTaskExecutor executor = new JobTaskExecutor(JobTaskExecutor.ExecutionMode.PLATFORM, 4);
+        try {
+            PositionEngine engine = new PositionEngine(executor, 4);
+            AtomicInteger mapped = new AtomicInteger();
+            List<Long> records = engine.mapPage(0, page(0), () -> mapped.get() < 10, (item, position) -> {
+                mapped.incrementAndGet();
+                return List.of(position);
+            });
+            Assertions.assertTrue(records.size() < PAGE_SIZE);
+            Assertions.assertEquals(mapped.get(), records.size());
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    private void assertDeterministic(JobTaskExecutor.ExecutionMode mode, int concurrency) throws Exception {
+        JobTaskExecutor executor = new JobTaskExecutor(mode, concurrency);
+        try {
+            PositionEngine engine = new PositionEngine(executor, concurrency);
+            for (int pageIndex = 0; pageIndex < PAGES; pageIndex++) {
+                long offset = (long) pageIndex * PAGE_SIZE;
+                List<Long> items = page(offset);
+                // every item yields two records, workers are delayed at random to shuffle completion order
+                List<long[]> records = engine.mapPage(offset, items, () -> true, (item, position) -> {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ThreadLocalRandom.current().nextInt(200)));
+                    return List.of(new long[]{item, position}, new long[]{item, position});
+                });
+                Assertions.assertEquals(items.size() * 2, records.size());
+                for (int i = 0; i < records.size(); i++) {
+                    long[] record = records.get(i);
+                    Assertions.assertEquals(items.get(i / 2), record[0]);
+                    Assertions.assertEquals(offset + i / 2 + 1, record[1]);
+                }
+            }
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    private static List<Long> page(long offset) {
+        List<Long> items = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            items.add(1_000_000L + offset + i);
+        }
+        return items;
+    }
+}
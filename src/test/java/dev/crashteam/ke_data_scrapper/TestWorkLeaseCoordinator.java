@@ -0,0 +1,117 @@
+package dev.crashteam.ke_data_scrapper;
+
+import dev.crashteam.ke_data_scrapper.model.work.WorkUnit;
+import dev.crashteam.ke_data_scrapper.service.work.WorkLeaseCoordinator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+public class TestWorkLeaseCoordinator {
+
+    private static final String RUN_ID = "1700000000000";
+    private static final long LEASE_TTL = 60000;
+
+    private MutableClock clock;
+    private InMemoryWorkQueue workQueue;
+    private WorkLeaseCoordinator first;
+    private WorkLeaseCoordinator second;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock();
+        workQueue = new InMemoryWorkQueue();
+        first = new WorkLeaseCoordinator(workQueue, LEASE_TTL, clock, "first");
+        second = new WorkLeaseCoordinator(workQueue, LEASE_TTL, clock, "second");
+        workQueue.enqueue(RUN_ID, List.of(
+                WorkUnit.head(RUN_ID, 1L, 10),
+                WorkUnit.head(RUN_ID, 2L, 30),
+                WorkUnit.head(RUN_ID, 3L, 20)));
+    }
+
+    @Test
+    public void testAcquiresByPriority() {
+        Assertions.assertEquals(2L, first.acquire(RUN_ID).getUnit().categoryId());
+        Assertions.assertEquals(3L, second.acquire(RUN_ID).getUnit().categoryId());
+        Assertions.assertEquals(1L, first.acquire(RUN_ID).getUnit().categoryId());
+        Assertions.assertNull(second.acquire(RUN_ID));
+    }
+
+    @Test
+    public void testHeartbeatKeepsLease() {
+        WorkLeaseCoordinator.Lease lease = first.acquire(RUN_ID);
+        for (int i = 0; i < 10; i++) {
+            clock.advance(LEASE_TTL / 2);
+            first.heartbeat();
+        }
+        Assertions.assertFalse(lease.isLost());
+        Assertions.assertEquals(3L, second.acquire(RUN_ID).getUnit().categoryId());
+    }
+
+    @Test
+    public void testExpiredLeaseIsTakenOver() {
+        WorkLeaseCoordinator.Lease lease = first.acquire(RUN_ID);
+        clock.advance(LEASE_TTL);
+
+        WorkLeaseCoordinator.Lease stolen = second.acquire(RUN_ID);
+        Assertions.assertEquals(lease.getUnit(), stolen.getUnit());
+
+        first.heartbeat();
+        Assertions.assertTrue(lease.isLost());
+        first.complete(lease);
+        Assertions.assertEquals(1, workQueue.leased(RUN_ID));
+
+        second.complete(stolen);
+        Assertions.assertEquals(0, workQueue.leased(RUN_ID));
+        Assertions.assertEquals(2, workQueue.queued(RUN_ID));
+    }
+
+    @Test
+    public void testReleaseQueuesRemainingRange() {
+        WorkLeaseCoordinator.Lease lease = first.acquire(RUN_ID);
+        WorkUnit unit = lease.getUnit();
+        WorkUnit remaining = new WorkUnit(RUN_ID, unit.categoryId(), 400, 2000, unit.priority());
+        first.release(lease, remaining);
+
+        WorkLeaseCoordinator.Lease next = second.acquire(RUN_ID);
+        Assertions.assertEquals(remaining, next.getUnit());
+        Assertions.assertEquals(30, next.getUnit().priority());
+    }
+
+    @Test
+    public void testWorkUnitEncoding() {
+        WorkUnit unit = new WorkUnit(RUN_ID, 10L, 2000, WorkUnit.UNBOUNDED, 5);
+        Assertions.assertEquals(unit, WorkUnit.decode(unit.encode(), 5));
+        Assertions.assertTrue(WorkUnit.head(RUN_ID, 10L, 5).isHead());
+        Assertions.assertFalse(unit.isHead());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(long millis) {
+            instant = instant.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
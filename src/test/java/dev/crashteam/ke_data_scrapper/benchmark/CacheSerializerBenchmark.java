@@ -0,0 +1,76 @@
+package dev.crashteam.ke_data_scrapper.benchmark;
+
+import dev.crashteam.ke_data_scrapper.CachePayloads;
+import dev.crashteam.ke_data_scrapper.component.GzipRedisSerializer;
+import dev.crashteam.ke_data_scrapper.component.cache.CompactCacheRedisSerializer;
+import dev.crashteam.ke_data_scrapper.model.cache.CachedProductData;
+import dev.crashteam.ke_data_scrapper.model.cache.GraphQlCacheData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cache serializers on product and GQL page payloads.
+ * Run with {@code main} from the test classpath; encoded sizes are printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"gzip", "compact", "compact-lz4"})
+    public String serializer;
+
+    private RedisSerializer<Object> redisSerializer;
+    private CachedProductData product;
+    private GraphQlCacheData page;
+    private byte[] productBytes;
+    private byte[] pageBytes;
+
+    @Setup
+    public void setup() {
+        redisSerializer = switch (serializer) {
+            case "gzip" -> new GzipRedisSerializer();
+            case "compact" -> new CompactCacheRedisSerializer(CompactCacheRedisSerializer.Compression.NONE);
+            default -> new CompactCacheRedisSerializer(CompactCacheRedisSerializer.Compression.LZ4);
+        };
+        product = CachePayloads.product(123_456L);
+        page = CachePayloads.page(1_000_000L);
+        productBytes = redisSerializer.serialize(product);
+        pageBytes = redisSerializer.serialize(page);
+        System.out.printf("%n%s: product %d bytes, page %d bytes%n", serializer, productBytes.length, pageBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() {
+        return redisSerializer.serialize(product);
+    }
+
+    @Benchmark
+    public Object deserializeProduct() {
+        return redisSerializer.deserialize(productBytes);
+    }
+
+    @Benchmark
+    public byte[] serializePage() {
+        return redisSerializer.serialize(page);
+    }
+
+    @Benchmark
+    public Object deserializePage() {
+        return redisSerializer.deserialize(pageBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheSerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
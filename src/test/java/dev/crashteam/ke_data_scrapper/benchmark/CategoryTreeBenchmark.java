@@ -0,0 +1,151 @@
+package dev.crashteam.ke_data_scrapper.benchmark;
+
+import dev.crashteam.ke_data_scrapper.mapper.KeCategoryToMessageMapper;
+import dev.crashteam.ke_data_scrapper.model.category.CategoryTree;
+import dev.crashteam.ke_data_scrapper.model.ke.KeCategory;
+import dev.crashteam.ke_data_scrapper.model.ke.KeGQLResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects all category ids of a synthetic 20k category tree with the former per-node scans of the
+ * GQL tree and with {@link CategoryTree}, and maps the tree to category messages.
+ * Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryTreeBenchmark {
+
+    private static final int ROOTS = 20;
+    private static final int LISTED_CHILDREN = 10;
+    private static final int GQL_FAN_OUT = 6;
+    private static final int SIZE = 20_000;
+
+    private final KeCategoryToMessageMapper mapper = new KeCategoryToMessageMapper();
+    private List<KeCategory.Data> rootCategories;
+    private List<KeGQLResponse.ResponseCategoryWrapper> categoryTree;
+    private CategoryTree tree;
+
+    @Setup
+    public void setup() {
+        rootCategories = new ArrayList<>();
+        categoryTree = new ArrayList<>();
+        List<Long> parents = new ArrayList<>();
+        long id = 1;
+        for (int r = 0; r < ROOTS; r++) {
+            KeCategory.Data root = listed(++id);
+            root.setChildren(new ArrayList<>());
+            for (int c = 0; c < LISTED_CHILDREN; c++) {
+                KeCategory.Data child = listed(++id);
+                child.setChildren(List.of());
+                root.getChildren().add(child);
+                categoryTree.add(gql(child.getId(), root.getId()));
+                parents.add(child.getId());
+            }
+            rootCategories.add(root);
+            categoryTree.add(gql(root.getId(), 1L));
+        }
+        // breadth first below the listed categories until the tree has SIZE nodes
+        for (int i = 0; id <= SIZE; i++) {
+            long parent = parents.get(i);
+            for (int c = 0; c < GQL_FAN_OUT && id <= SIZE; c++) {
+                categoryTree.add(gql(++id, parent));
+                parents.add(id);
+            }
+        }
+        tree = CategoryTree.build(rootCategories, categoryTree);
+        System.out.printf("%ncategory tree: %d nodes, %d ids%n", tree.size(), tree.ids().size());
+    }
+
+    @Benchmark
+    public Set<Long> scanIds() {
+        Set<Long> ids = new HashSet<>();
+        for (KeCategory.Data rootCategory : rootCategories) {
+            addIdsFromTree(rootCategory, categoryTree, ids);
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public Set<Long> treeIds() {
+        return CategoryTree.build(rootCategories, categoryTree).ids();
+    }
+
+    @Benchmark
+    public List<dev.crashteam.ke.scrapper.data.v1.KeCategory> treeMessages() {
+        List<dev.crashteam.ke.scrapper.data.v1.KeCategory> messages = new ArrayList<>();
+        for (int root : tree.roots()) {
+            messages.add(mapper.mapToMessage(tree, root));
+        }
+        return messages;
+    }
+
+    private static void addIdsFromTree(
+            KeCategory.Data category,
+            List<KeGQLResponse.ResponseCategoryWrapper> categoryTree,
+            Set<Long> ids) {
+        ids.add(category.getId());
+        if (!CollectionUtils.isEmpty(category.getChildren())) {
+            for (KeCategory.Data child : category.getChildren()) {
+                addIdsFromTree(child, categoryTree, ids);
+            }
+        }
+        addIdsFromChildren(category.getId(), categoryTree, ids);
+    }
+
+    private static void addIdsFromChildren(
+            Long categoryId,
+            List<KeGQLResponse.ResponseCategoryWrapper> categoryTree,
+            Set<Long> ids) {
+        if (categoryTree.stream().anyMatch(it -> isChild(it, categoryId))) {
+            for (KeGQLResponse.ResponseCategoryWrapper wrapper : categoryTree.stream().filter(it -> isChild(it, categoryId)).toList()) {
+                ids.add(wrapper.getCategory().getId());
+                addIdsFromChildren(wrapper.getCategory().getId(), categoryTree, ids);
+            }
+        }
+    }
+
+    private static boolean isChild(KeGQLResponse.ResponseCategoryWrapper wrapper, Long parentId) {
+        return wrapper.getCategory().getParent() != null
+                && Objects.equals(wrapper.getCategory().getParent().getId(), parentId);
+    }
+
+    private static KeCategory.Data listed(long id) {
+        KeCategory.Data data = new KeCategory.Data();
+        data.setId(id);
+        data.setTitle("Category " + id);
+        return data;
+    }
+
+    private static KeGQLResponse.ResponseCategoryWrapper gql(long id, long parentId) {
+        KeGQLResponse.ResponseCategory parent = new KeGQLResponse.ResponseCategory();
+        parent.setId(parentId);
+        KeGQLResponse.ResponseCategory category = new KeGQLResponse.ResponseCategory();
+        category.setId(id);
+        category.setTitle("Category " + id);
+        category.setParent(parent);
+        KeGQLResponse.ResponseCategoryWrapper wrapper = new KeGQLResponse.ResponseCategoryWrapper();
+        wrapper.setCategory(category);
+        return wrapper;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CategoryTreeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
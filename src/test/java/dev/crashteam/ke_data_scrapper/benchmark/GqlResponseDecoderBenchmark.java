@@ -0,0 +1,100 @@
+package dev.crashteam.ke_data_scrapper.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.crashteam.ke_data_scrapper.mapper.cache.KeGraphToCachedGraph;
+import dev.crashteam.ke_data_scrapper.model.StyxProxyResult;
+import dev.crashteam.ke_data_scrapper.model.cache.GraphQlCacheData;
+import dev.crashteam.ke_data_scrapper.model.ke.KeGQLResponse;
+import dev.crashteam.ke_data_scrapper.service.integration.StyxProxyService;
+import dev.crashteam.ke_data_scrapper.service.integration.decoder.KeGqlSearchDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a styx result of a 100 item light search page into the page cache model with databind and
+ * with the streaming decoder. Run with {@code main} from the test classpath, the GC profiler reports
+ * the allocation rate ({@code gc.alloc.rate.norm}) next to the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GqlResponseDecoderBenchmark {
+
+    private static final int ITEMS = 100;
+    private static final int CHARACTERISTIC_VALUES = 12;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StyxProxyService styxProxyService = new StyxProxyService(null, objectMapper);
+    private final KeGqlSearchDecoder decoder = new KeGqlSearchDecoder();
+    private JavaType resultType;
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        resultType = objectMapper.getTypeFactory().constructParametricType(StyxProxyResult.class, KeGQLResponse.class);
+        body = page().getBytes(StandardCharsets.UTF_8);
+        System.out.printf("%nstyx result: %d bytes%n", body.length);
+    }
+
+    @Benchmark
+    public GraphQlCacheData databind() throws Exception {
+        StyxProxyResult<KeGQLResponse> result = objectMapper.readValue(body, resultType);
+        return KeGraphToCachedGraph.keGQLResponseToCachedGraph(result.getBody());
+    }
+
+    @Benchmark
+    public GraphQlCacheData streaming() throws Exception {
+        StyxProxyResult<KeGQLResponse> result = styxProxyService.decodeResult(body, decoder);
+        return KeGraphToCachedGraph.keGQLResponseToCachedGraph(result.getBody());
+    }
+
+    private static String page() {
+        StringBuilder json = new StringBuilder(256 * 1024);
+        json.append("{\"code\":0,\"originalStatus\":200,\"url\":\"https://graphql.kazanexpress.ru/\",\"httpMethod\":\"POST\",")
+                .append("\"body\":{\"data\":{\"makeSearch\":{\"items\":[");
+        for (int i = 0; i < ITEMS; i++) {
+            if (i > 0) json.append(',');
+            long productId = 1_000_000L + i;
+            json.append("{\"catalogCard\":{\"__typename\":\"SkuGroupCard\",\"feedbackQuantity\":").append(i * 3)
+                    .append(",\"minFullPrice\":").append(150_000 + i)
+                    .append(",\"minSellPrice\":").append(120_000 + i)
+                    .append(",\"ordersQuantity\":").append(i * 17)
+                    .append(",\"productId\":").append(productId)
+                    .append(",\"rating\":4.8,\"characteristicValues\":[");
+            for (int c = 0; c < 2; c++) {
+                if (c > 0) json.append(',');
+                json.append("{\"id\":").append(productId * 10 + c)
+                        .append(",\"value\":\"#00000").append(c).append("\",\"title\":\"Цвет ").append(c)
+                        .append("\",\"characteristic\":{\"values\":[");
+                for (int v = 0; v < CHARACTERISTIC_VALUES; v++) {
+                    if (v > 0) json.append(',');
+                    json.append("{\"id\":").append(productId * 100 + v)
+                            .append(",\"title\":\"Значение характеристики ").append(v)
+                            .append("\",\"value\":\"#").append(100_000 + v).append("\",\"__typename\":\"CharacteristicValue\"}");
+                }
+                json.append("],\"title\":\"Цвет\",\"id\":").append(c).append(",\"__typename\":\"Characteristic\"},")
+                        .append("\"__typename\":\"CharacteristicValue\"}");
+            }
+            json.append("],\"__typename\":\"SkuGroupCard\"},\"bidId\":null,\"__typename\":\"CatalogCardItem\"}");
+        }
+        json.append("],\"total\":").append(25_000).append("}}}}");
+        return json.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GqlResponseDecoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,148 @@
+package dev.crashteam.ke_data_scrapper.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.crashteam.ke.scrapper.data.v1.KeProductChange;
+import dev.crashteam.ke_data_scrapper.mapper.KeProductToMessageMapper;
+import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps synthetic products with growing SKU and photo counts. {@code scan} resolves every SKU the former
+ * way, walking the characteristic lists and scanning the photos per SKU, and maps the SKUs only;
+ * {@code indexed} is the whole product mapping through the per-product lookup tables. Run with
+ * {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LargeProductMapperBenchmark {
+
+    private static final int SIZES = 5;
+    private static final int PHOTOS_PER_COLOR = 4;
+
+    @Param({"40", "400", "2000"})
+    private int skus;
+
+    private final KeProductToMessageMapper mapper = new KeProductToMessageMapper();
+    private KeProduct.ProductData productData;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream json = getClass().getResourceAsStream("/benchmark/ke-product.json")) {
+            productData = new ObjectMapper().readValue(json, KeProduct.class).getPayload().getData();
+        }
+        int colors = skus / SIZES;
+        List<KeProduct.ProductPhoto> photos = new ArrayList<>(colors * PHOTOS_PER_COLOR);
+        List<KeProduct.Characteristic> colorValues = new ArrayList<>(colors);
+        for (int c = 0; c < colors; c++) {
+            String color = "#%06x".formatted(c * 7919);
+            colorValues.add(characteristic(c, "Цвет " + c, color));
+            for (int p = 0; p < PHOTOS_PER_COLOR; p++) {
+                KeProduct.ProductPhoto photo = new KeProduct.ProductPhoto();
+                photo.setColor(color);
+                photo.setPhotoKey("photo-%d-%d".formatted(c, p));
+                photos.add(photo);
+            }
+        }
+        List<KeProduct.Characteristic> sizeValues = new ArrayList<>(SIZES);
+        for (int s = 0; s < SIZES; s++) {
+            sizeValues.add(characteristic(1000 + s, String.valueOf(44 + s * 2), String.valueOf(44 + s * 2)));
+        }
+        List<KeProduct.SkuData> skuList = new ArrayList<>(skus);
+        for (int c = 0; c < colors; c++) {
+            for (int s = 0; s < SIZES; s++) {
+                KeProduct.SkuData sku = new KeProduct.SkuData();
+                sku.setId(10_000_000L + skuList.size());
+                sku.setAvailableAmount(5L);
+                sku.setPurchasePrice("149000");
+                sku.setFullPrice("199000");
+                // size first, the color is found on the second characteristic
+                sku.setCharacteristics(List.of(skuCharacteristic(1, s), skuCharacteristic(0, c)));
+                skuList.add(sku);
+            }
+        }
+        productData.setPhotos(photos);
+        productData.setCharacteristics(List.of(characteristics(1, "Цвет", colorValues),
+                characteristics(2, "Размер", sizeValues)));
+        productData.setSkuList(skuList);
+    }
+
+    @Benchmark
+    public KeProductChange scan() {
+        KeProductChange.Builder builder = KeProductChange.newBuilder();
+        List<KeProduct.CharacteristicsData> characteristics = productData.getCharacteristics();
+        List<KeProduct.ProductPhoto> photos = productData.getPhotos();
+        for (KeProduct.SkuData sku : productData.getSkuList()) {
+            KeProductChange.KeProductSku.Builder skuBuilder = builder.addSkusBuilder()
+                    .setSkuId(sku.getId().toString())
+                    .setAvailableAmount(sku.getAvailableAmount())
+                    .setPurchasePrice(sku.getPurchasePrice());
+            KeProduct.ProductPhoto productPhoto = null;
+            for (KeProduct.ScuCharacteristic skuCharacteristic : sku.getCharacteristics()) {
+                KeProduct.CharacteristicsData productCharacteristic = characteristics.get(skuCharacteristic.getCharIndex());
+                KeProduct.Characteristic characteristicValue = productCharacteristic.getValues().get(skuCharacteristic.getValueIndex());
+                skuBuilder.addCharacteristicsBuilder()
+                        .setType(productCharacteristic.getTitle())
+                        .setTitle(characteristicValue.getTitle())
+                        .setValue(characteristicValue.getValue());
+                if (productPhoto == null) {
+                    productPhoto = photos.stream()
+                            .filter(photo -> photo.getColor() != null)
+                            .filter(photo -> photo.getColor().equals(characteristicValue.getValue()))
+                            .findFirst()
+                            .orElse(null);
+                }
+            }
+            skuBuilder.setPhotoKey((productPhoto != null ? productPhoto : photos.get(0)).getPhotoKey());
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public KeProductChange indexed() {
+        return mapper.mapToMessage(productData);
+    }
+
+    private static KeProduct.Characteristic characteristic(long id, String title, String value) {
+        KeProduct.Characteristic characteristic = new KeProduct.Characteristic();
+        characteristic.setId(id);
+        characteristic.setTitle(title);
+        characteristic.setValue(value);
+        return characteristic;
+    }
+
+    private static KeProduct.CharacteristicsData characteristics(long id, String title, List<KeProduct.Characteristic> values) {
+        KeProduct.CharacteristicsData characteristics = new KeProduct.CharacteristicsData();
+        characteristics.setId(id);
+        characteristics.setTitle(title);
+        characteristics.setValues(values);
+        return characteristics;
+    }
+
+    private static KeProduct.ScuCharacteristic skuCharacteristic(int charIndex, int valueIndex) {
+        KeProduct.ScuCharacteristic skuCharacteristic = new KeProduct.ScuCharacteristic();
+        skuCharacteristic.setCharIndex(charIndex);
+        skuCharacteristic.setValueIndex(valueIndex);
+        return skuCharacteristic;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LargeProductMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
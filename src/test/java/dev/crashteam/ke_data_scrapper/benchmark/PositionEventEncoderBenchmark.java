@@ -0,0 +1,77 @@
+package dev.crashteam.ke_data_scrapper.benchmark;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.google.protobuf.Timestamp;
+import dev.crashteam.ke.scrapper.data.v1.KeProductCategoryPositionChange;
+import dev.crashteam.ke.scrapper.data.v1.KeScrapperEvent;
+import dev.crashteam.ke_data_scrapper.aws.KinesisEventEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes position events into Kinesis entries the former way, new builders, a random UUID and
+ * {@code toByteArray} per event, and with the encoder. Run with {@code main} from the test classpath,
+ * {@code gc.alloc.rate.norm} times a million is the allocation per million position events.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PositionEventEncoderBenchmark {
+
+    private long productId = 1_000_000L;
+
+    @Benchmark
+    public PutRecordsRequestEntry toByteArray() {
+        long id = productId++;
+        Instant now = Instant.now();
+        KeScrapperEvent scrapperEvent = KeScrapperEvent.newBuilder()
+                .setEventId(UUID.randomUUID().toString())
+                .setScrapTime(Timestamp.newBuilder()
+                        .setSeconds(now.getEpochSecond())
+                        .setNanos(now.getNano())
+                        .build())
+                .setEventPayload(KeScrapperEvent.EventPayload.newBuilder()
+                        .setKeProductPositionChange(KeProductCategoryPositionChange.newBuilder()
+                                .setPosition(id % 4000)
+                                .setProductId(id)
+                                .setSkuId(id * 10)
+                                .setCategoryId(10500L)
+                                .build())
+                        .build())
+                .build();
+        PutRecordsRequestEntry requestEntry = new PutRecordsRequestEntry();
+        requestEntry.setPartitionKey(Long.toString(id));
+        requestEntry.setData(ByteBuffer.wrap(scrapperEvent.toByteArray()));
+        return requestEntry;
+    }
+
+    @Benchmark
+    public PutRecordsRequestEntry encoder() {
+        long id = productId++;
+        KeScrapperEvent.Builder event = KinesisEventEncoder.newEvent(Instant.now());
+        event.getEventPayloadBuilder().getKeProductPositionChangeBuilder()
+                .setPosition(id % 4000)
+                .setProductId(id)
+                .setSkuId(id * 10)
+                .setCategoryId(10500L);
+        return KinesisEventEncoder.toEntry(event, Long.toString(id));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PositionEventEncoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
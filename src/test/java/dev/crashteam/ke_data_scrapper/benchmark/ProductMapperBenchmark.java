@@ -0,0 +1,77 @@
+package dev.crashteam.ke_data_scrapper.benchmark;
+
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Timestamp;
+import dev.crashteam.ke.scrapper.data.v1.KeProductChange;
+import dev.crashteam.ke.scrapper.data.v1.KeScrapperEvent;
+import dev.crashteam.ke_data_scrapper.mapper.KeProductToMessageMapper;
+import dev.crashteam.ke_data_scrapper.model.dto.KeProductMessage;
+import dev.crashteam.ke_data_scrapper.model.ke.KeProduct;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a product event from a product response with the former validate-then-map path and with
+ * the single pass mapper. Run with {@code main} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductMapperBenchmark {
+
+    private final KeProductToMessageMapper mapper = new KeProductToMessageMapper();
+    private KeProduct.ProductData productData;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream json = getClass().getResourceAsStream("/benchmark/ke-product.json")) {
+            productData = new ObjectMapper().readValue(json, KeProduct.class).getPayload().getData();
+        }
+    }
+
+    @Benchmark
+    public byte[] twoPass() {
+        KeProductMessage productMessage = mapper.productToMessage(productData);
+        if (productMessage.isCorrupted()) {
+            return null;
+        }
+        Instant now = Instant.now();
+        KeProductChange keProductChange = mapper.mapToMessage(productData);
+        return KeScrapperEvent.newBuilder()
+                .setEventId(UUID.randomUUID().toString())
+                .setScrapTime(Timestamp.newBuilder()
+                        .setSeconds(now.getEpochSecond())
+                        .setNanos(now.getNano())
+                        .build())
+                .setEventPayload(KeScrapperEvent.EventPayload.newBuilder()
+                        .setKeProductChange(keProductChange)
+                        .build())
+                .build()
+                .toByteArray();
+    }
+
+    @Benchmark
+    public PutRecordsRequestEntry singlePass() {
+        return mapper.toEntry(productData, Instant.now());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}